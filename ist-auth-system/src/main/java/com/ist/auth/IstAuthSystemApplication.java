@@ -3,9 +3,11 @@ package com.ist.auth;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.ist.auth")
 @EnableJpaAuditing
+@EnableScheduling
 public class IstAuthSystemApplication {
 
 	public static void main(String[] args) {
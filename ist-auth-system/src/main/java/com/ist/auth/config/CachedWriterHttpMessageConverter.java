@@ -0,0 +1,55 @@
+package com.ist.auth.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON converter for hot response records. An ObjectWriter is resolved once per type at
+ * startup, and each response is streamed straight into the servlet output through Jackson's
+ * recycled buffers, without a per-request writer lookup or an intermediate byte array.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public class CachedWriterHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    
+    private final Map<Class<?>, ObjectWriter> writers;
+    
+    public CachedWriterHttpMessageConverter(ObjectMapper objectMapper, Class<?>... types) {
+        super(MediaType.APPLICATION_JSON);
+        Map<Class<?>, ObjectWriter> resolved = new HashMap<>();
+        for (Class<?> type : types) {
+            resolved.put(type, objectMapper.writerFor(type));
+        }
+        this.writers = Map.copyOf(resolved);
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return writers.containsKey(clazz);
+    }
+    
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Response types are write-only", inputMessage);
+    }
+    
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        writers.get(value.getClass()).writeValue(StreamUtils.nonClosing(outputMessage.getBody()), value);
+    }
+}
@@ -3,9 +3,10 @@ package com.ist.auth.config;
 import com.ist.auth.entity.*;
 import com.ist.auth.repository.RoleRepository;
 import com.ist.auth.repository.OAuthClientRepository;
+import com.ist.auth.security.ClientSecretHasher;
+import com.ist.auth.service.RoleRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.util.Set;
@@ -25,7 +26,10 @@ public class DataInitializer implements CommandLineRunner {
     private OAuthClientRepository oAuthClientRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private ClientSecretHasher clientSecretHasher;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
 
     @Override
     public void run(String... args) throws Exception {
@@ -44,6 +48,7 @@ public class DataInitializer implements CommandLineRunner {
         if (!roleRepository.existsByName(roleName)) {
             Role role = new Role(roleName, description);
             roleRepository.save(role);
+            roleRegistry.refreshAfterCommit();
             System.out.println("Created role: " + roleName);
         }
     }
@@ -68,7 +73,7 @@ public class DataInitializer implements CommandLineRunner {
 
     private void createClientIfNotExists(String clientId, String clientSecret, String clientName, String description) {
         if (!oAuthClientRepository.existsByClientId(clientId)) {
-            OAuthClient client = new OAuthClient(clientId, passwordEncoder.encode(clientSecret), clientName);
+            OAuthClient client = new OAuthClient(clientId, clientSecretHasher.hash(clientSecret), clientName);
             client.setDescription(description);
             client.setRedirectUris(Set.of(
                 "http://localhost:3000/auth/callback",
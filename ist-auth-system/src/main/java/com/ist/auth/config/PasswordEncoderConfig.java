@@ -0,0 +1,110 @@
+package com.ist.auth.config;
+
+import com.ist.auth.security.BCryptCostCalibrator;
+import com.ist.auth.security.ClientSecretHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Password Encoder Configuration with a startup-calibrated BCrypt cost
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Configuration
+public class PasswordEncoderConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderConfig.class);
+    
+    public static final String BCRYPT_ID = "bcrypt";
+    
+    @Value("${app.password-hashing.target-latency:250ms}")
+    private Duration targetLatency;
+    
+    @Value("${app.password-hashing.bcrypt-cost:0}")
+    private int fixedCost;
+    
+    @Value("${app.password-hashing.min-cost:12}")
+    private int minCost;
+    
+    @Value("${app.password-hashing.max-cost:16}")
+    private int maxCost;
+    
+    @Value("${app.oauth.client-secret-pepper:}")
+    private String clientSecretPepper;
+    
+    @Autowired
+    private Environment environment;
+    
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        int cost = fixedCost > 0 ? fixedCost : BCryptCostCalibrator.calibrate(targetLatency, minCost, maxCost);
+        BCryptPasswordEncoder bcrypt = new TargetCostBCryptPasswordEncoder(cost);
+        
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT_ID, bcrypt);
+        encoders.put("pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, encoders);
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+    
+    @Bean
+    public ClientSecretHasher clientSecretHasher(PasswordEncoder passwordEncoder) {
+        String pepper = clientSecretPepper;
+        if (!StringUtils.hasText(pepper)) {
+            // The development pepper is public; hashes made with it are no better than unpeppered ones
+            if (!environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+                throw new IllegalStateException(
+                        "app.oauth.client-secret-pepper is not set. Set CLIENT_SECRET_PEPPER outside the dev and test profiles.");
+            }
+            logger.warn("app.oauth.client-secret-pepper is not set, using the development pepper");
+            pepper = "ist-auth-development-pepper";
+        }
+        return new ClientSecretHasher(pepper, passwordEncoder);
+    }
+    
+    /**
+     * Flags BCrypt hashes weaker than the calibrated target so they are upgraded through
+     * rehash-on-login. Stronger hashes are kept: a node that calibrates lower must not
+     * weaken hashes written by a faster one.
+     */
+    static class TargetCostBCryptPasswordEncoder extends BCryptPasswordEncoder {
+        
+        private final int targetCost;
+        
+        TargetCostBCryptPasswordEncoder(int targetCost) {
+            super(targetCost);
+            this.targetCost = targetCost;
+        }
+        
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+                return false;
+            }
+            
+            try {
+                return Integer.parseInt(encodedPassword.substring(4, 6)) < targetCost;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
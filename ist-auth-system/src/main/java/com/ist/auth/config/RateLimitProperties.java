@@ -0,0 +1,115 @@
+package com.ist.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per route rate limit policies (app.rate-limit.*). Each policy limits independently by
+ * client IP, user and OAuth client; a request must fit every configured limit.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    /**
+     * local keeps buckets in this process; redis shares them across replicas
+     */
+    private String backend = "local";
+    
+    private int maxKeys = 100_000;
+    
+    private Duration idleSweepInterval = Duration.ofSeconds(30);
+    
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+    
+    private Redis redis = new Redis();
+    
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    
+    public String getBackend() { return backend; }
+    public void setBackend(String backend) { this.backend = backend; }
+    
+    public int getMaxKeys() { return maxKeys; }
+    public void setMaxKeys(int maxKeys) { this.maxKeys = maxKeys; }
+    
+    public Duration getIdleSweepInterval() { return idleSweepInterval; }
+    public void setIdleSweepInterval(Duration idleSweepInterval) { this.idleSweepInterval = idleSweepInterval; }
+    
+    public Map<String, Policy> getPolicies() { return policies; }
+    public void setPolicies(Map<String, Policy> policies) { this.policies = policies; }
+    
+    public Redis getRedis() { return redis; }
+    public void setRedis(Redis redis) { this.redis = redis; }
+    
+    public static class Policy {
+        
+        private List<String> paths = new ArrayList<>();
+        
+        /**
+         * JSON body field identifying the user on anonymous endpoints (e.g. emailOrUsername)
+         */
+        private String userField;
+        
+        /**
+         * Limits keyed by dimension: ip, user or client
+         */
+        private Map<String, Limit> limits = new LinkedHashMap<>();
+        
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+        
+        public String getUserField() { return userField; }
+        public void setUserField(String userField) { this.userField = userField; }
+        
+        public Map<String, Limit> getLimits() { return limits; }
+        public void setLimits(Map<String, Limit> limits) { this.limits = limits; }
+    }
+    
+    public static class Limit {
+        
+        private long requests = 10;
+        
+        private Duration period = Duration.ofMinutes(1);
+        
+        /**
+         * Requests allowed back to back before the steady rate applies; defaults to requests
+         */
+        private int burst = 0;
+        
+        public long getRequests() { return requests; }
+        public void setRequests(long requests) { this.requests = requests; }
+        
+        public Duration getPeriod() { return period; }
+        public void setPeriod(Duration period) { this.period = period; }
+        
+        public int getBurst() { return burst > 0 ? burst : (int) Math.min(Integer.MAX_VALUE, requests); }
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+    
+    public static class Redis {
+        
+        private String keyPrefix = "ratelimit";
+        
+        /**
+         * How long to stay on local limits after a Redis failure before trying Redis again
+         */
+        private Duration failureCooldown = Duration.ofSeconds(5);
+        
+        public String getKeyPrefix() { return keyPrefix; }
+        public void setKeyPrefix(String keyPrefix) { this.keyPrefix = keyPrefix; }
+        
+        public Duration getFailureCooldown() { return failureCooldown; }
+        public void setFailureCooldown(Duration failureCooldown) { this.failureCooldown = failureCooldown; }
+    }
+}
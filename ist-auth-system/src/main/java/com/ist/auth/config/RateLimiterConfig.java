@@ -0,0 +1,28 @@
+package com.ist.auth.config;
+
+import com.ist.auth.security.RedisRateLimiter;
+import com.ist.auth.security.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Rate Limiter Configuration selecting the shared Redis backend when
+ * app.rate-limit.backend=redis; otherwise the in-memory TokenBucketRateLimiter is used
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Configuration
+public class RateLimiterConfig {
+    
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "app.rate-limit", name = "backend", havingValue = "redis")
+    public RedisRateLimiter redisRateLimiter(StringRedisTemplate redisTemplate, TokenBucketRateLimiter localRateLimiter,
+                                             RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new RedisRateLimiter(redisTemplate, localRateLimiter, properties.getRedis(), meterRegistry);
+    }
+}
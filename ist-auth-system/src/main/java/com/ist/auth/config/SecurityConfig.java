@@ -1,16 +1,23 @@
 package com.ist.auth.config;
 
+import com.ist.auth.security.AdaptiveConcurrencyFilter;
+import com.ist.auth.security.BulkheadFilter;
 import com.ist.auth.security.JwtAuthenticationEntryPoint;
 import com.ist.auth.security.JwtAuthenticationFilter;
+import com.ist.auth.security.RateLimitFilter;
+import com.ist.auth.security.RoleMaskAuthorizationManager;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.authorization.method.AuthorizationInterceptorsOrder;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -36,9 +43,22 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    @Autowired
+    private BulkheadFilter bulkheadFilter;
+    
+    @Autowired
+    private AdaptiveConcurrencyFilter adaptiveConcurrencyFilter;
+    
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor roleMaskAuthorizationAdvisor() {
+        AuthorizationManagerBeforeMethodInterceptor interceptor = new AuthorizationManagerBeforeMethodInterceptor(
+                RoleMaskAuthorizationManager.POINTCUT, new RoleMaskAuthorizationManager());
+        interceptor.setOrder(AuthorizationInterceptorsOrder.PRE_AUTHORIZE.getOrder());
+        return interceptor;
     }
     
     @Bean
@@ -69,11 +89,31 @@ public class SecurityConfig {
         // Add JWT filter
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
+        // Shed excess load per endpoint group before any token work happens
+        http.addFilterBefore(bulkheadFilter, JwtAuthenticationFilter.class);
+        
+        // Adaptive latency-based limit in front of everything else
+        http.addFilterBefore(adaptiveConcurrencyFilter, BulkheadFilter.class);
+        
+        // Per IP, user and client rate limits reject abusive callers before they take a concurrency slot
+        http.addFilterBefore(rateLimitFilter, AdaptiveConcurrencyFilter.class);
+        
         return http.build();
     }
     
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", corsConfiguration());
+        
+        return source;
+    }
+    
+    /**
+     * Shared by the security chain's CORS handling and the CorsPreflightFilter cache
+     */
+    @Bean
+    public CorsConfiguration corsConfiguration() {
         CorsConfiguration configuration = new CorsConfiguration();
         
         // Allow specific origins (configure based on environment)
@@ -107,9 +147,6 @@ public class SecurityConfig {
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
-        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", configuration);
-        
-        return source;
+        return configuration;
     }
 }
@@ -0,0 +1,30 @@
+package com.ist.auth.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ist.auth.dto.AuthResponse;
+import com.ist.auth.dto.RegistrationResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC configuration for response serialization
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Ahead of the generic Jackson converter so auth responses use the pre-resolved writers
+        converters.add(0, new CachedWriterHttpMessageConverter(objectMapper,
+                AuthResponse.class, RegistrationResponse.class));
+    }
+}
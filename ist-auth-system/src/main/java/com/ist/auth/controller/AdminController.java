@@ -1,6 +1,8 @@
 package com.ist.auth.controller;
 
 import com.ist.auth.entity.User;
+import com.ist.auth.security.RequiresRoles;
+import com.ist.auth.service.CredentialStuffingDetector;
 import com.ist.auth.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -26,6 +28,9 @@ public class AdminController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private CredentialStuffingDetector credentialStuffingDetector;
+    
     @Operation(summary = "Get All Users", description = "Get list of all users (Admin only)")
     @GetMapping("/users")
     public ResponseEntity<List<Map<String, Object>>> getAllUsers() {
@@ -62,6 +67,14 @@ public class AdminController {
         }
     }
     
+    @Operation(summary = "Login Heavy Hitters", description = "Heaviest failed-login sources and the temporary block list (Admin only)")
+    @GetMapping("/security/heavy-hitters")
+    @RequiresRoles("ADMIN")
+    public ResponseEntity<Map<String, Object>> getHeavyHitters(@RequestParam(defaultValue = "10") int limit) {
+        logger.info("Admin fetching credential stuffing heavy hitters");
+        return ResponseEntity.ok(credentialStuffingDetector.snapshot(Math.max(1, limit)));
+    }
+    
     private Map<String, Object> buildUserResponse(User user) {
         return Map.of(
             "id", user.getId(),
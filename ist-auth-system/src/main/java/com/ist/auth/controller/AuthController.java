@@ -1,5 +1,8 @@
 package com.ist.auth.controller;
 
+import com.ist.auth.dto.AuthResponse;
+import com.ist.auth.dto.RegistrationResponse;
+import com.ist.auth.security.SourceBlockedException;
 import com.ist.auth.service.AuthenticationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,18 +12,24 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -35,31 +44,48 @@ public class AuthController {
     
     @Operation(summary = "User Login", description = "Authenticate user with email/username and password")
     @PostMapping("/login")
-    public ResponseEntity<Map<String, Object>> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request,
+                                                                        HttpServletRequest httpRequest) {
         logger.info("Login attempt for user: {}", sanitizeForLog(request.emailOrUsername));
         
-        try {
-            Map<String, Object> response = authenticationService.authenticate(
-                request.emailOrUsername, 
-                request.password
-            );
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Login failed for user: {}", sanitizeForLog(request.emailOrUsername), e);
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Authentication failed"));
+        return authenticationService.authenticate(request.emailOrUsername, request.password,
+                        httpRequest.getRemoteAddr(), httpRequest.getHeader("User-Agent"))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> loginFailed(request, e));
+    }
+    
+    private ResponseEntity<?> loginFailed(LoginRequest request, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        
+        if (cause instanceof RejectedExecutionException) {
+            logger.warn("Login rejected, server saturated: {}", sanitizeForLog(request.emailOrUsername));
+            return serverBusy();
+        }
+        
+        if (cause instanceof SourceBlockedException blocked) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", String.valueOf(blocked.getRetryAfterSeconds()))
+                    .body(Map.of("error", "Too many failed logins from this network, please retry later"));
         }
+        
+        logger.error("Login failed for user: {}", sanitizeForLog(request.emailOrUsername), cause);
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "Authentication failed"));
+    }
+    
+    private static ResponseEntity<?> serverBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("error", "Server is busy, please retry shortly"));
     }
     
     @Operation(summary = "User Registration", description = "Register a new user account")
     @PostMapping("/register")
-    public ResponseEntity<Map<String, Object>> register(@Valid @RequestBody RegisterRequest request) {
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
         logger.info("Registration attempt for user: {}", sanitizeForLog(request.email));
         
         try {
-            Map<String, Object> response = authenticationService.register(
+            RegistrationResponse response = authenticationService.register(
                 request.username,
                 request.email,
                 request.firstName,
@@ -70,6 +96,9 @@ public class AuthController {
             
             return ResponseEntity.ok(response);
             
+        } catch (RejectedExecutionException e) {
+            logger.warn("Registration rejected, password hashing pool saturated: {}", sanitizeForLog(request.email));
+            return serverBusy();
         } catch (Exception e) {
             logger.error("Registration failed for user: {}", sanitizeForLog(request.email), e);
             return ResponseEntity.badRequest()
@@ -79,11 +108,11 @@ public class AuthController {
     
     @Operation(summary = "Refresh Access Token", description = "Generate new access token using refresh token")
     @PostMapping("/refresh")
-    public ResponseEntity<Map<String, Object>> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         logger.debug("Token refresh attempt");
         
         try {
-            Map<String, Object> response = authenticationService.refreshToken(request.refreshToken);
+            AuthResponse response = authenticationService.refreshToken(request.refreshToken);
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -184,6 +213,7 @@ public class AuthController {
     public static class RegisterRequest {
         @NotBlank(message = "Username is required")
         @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
+        @Pattern(regexp = "[^@]+", message = "Username must not contain '@'")
         public String username;
         
         @NotBlank(message = "Email is required")
@@ -3,6 +3,7 @@ package com.ist.auth.controller;
 import com.ist.auth.entity.BudgetCategory;
 import com.ist.auth.entity.BudgetExpense;
 import com.ist.auth.entity.User;
+import com.ist.auth.security.RequiresRoles;
 import com.ist.auth.service.BudgetService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -17,7 +18,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -43,7 +43,7 @@ public class BudgetController {
     
     // Budget Category Endpoints
     @PostMapping("/categories")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<Map<String, Object>> createCategory(@Valid @RequestBody CreateCategoryRequest request) {
         logger.info("Creating budget category: {}", request.name);
         
@@ -66,7 +66,7 @@ public class BudgetController {
     }
     
     @PutMapping("/categories/{categoryId}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<Map<String, Object>> updateCategory(@PathVariable Long categoryId,
                                                             @Valid @RequestBody UpdateCategoryRequest request) {
         logger.info("Updating budget category: {}", categoryId);
@@ -90,7 +90,7 @@ public class BudgetController {
     }
     
     @DeleteMapping("/categories/{categoryId}")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> deactivateCategory(@PathVariable Long categoryId) {
         logger.info("Deactivating budget category: {}", categoryId);
         
@@ -106,7 +106,7 @@ public class BudgetController {
     }
     
     @GetMapping("/categories")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    @RequiresRoles({"ADMIN", "TEACHER", "STUDENT"})
     public ResponseEntity<List<Map<String, Object>>> getAllCategories() {
         logger.debug("Fetching all active budget categories");
         
@@ -119,7 +119,7 @@ public class BudgetController {
     }
     
     @GetMapping("/categories/department/{department}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<List<Map<String, Object>>> getCategoriesByDepartment(@PathVariable String department) {
         logger.debug("Fetching budget categories for department: {}", department);
         
@@ -133,7 +133,7 @@ public class BudgetController {
     
     // Expense Endpoints
     @PostMapping("/expenses")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<Map<String, Object>> createExpense(@Valid @RequestBody CreateExpenseRequest request,
                                                            @AuthenticationPrincipal User currentUser) {
         logger.info("Creating budget expense: {}", request.description);
@@ -158,7 +158,7 @@ public class BudgetController {
     }
     
     @PostMapping("/expenses/{expenseId}/approve")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> approveExpense(@PathVariable Long expenseId,
                                                             @AuthenticationPrincipal User currentUser) {
         logger.info("Approving expense: {}", expenseId);
@@ -178,7 +178,7 @@ public class BudgetController {
     }
     
     @PostMapping("/expenses/{expenseId}/reject")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> rejectExpense(@PathVariable Long expenseId) {
         logger.info("Rejecting expense: {}", expenseId);
         
@@ -197,7 +197,7 @@ public class BudgetController {
     }
     
     @PostMapping("/expenses/{expenseId}/mark-paid")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> markExpenseAsPaid(@PathVariable Long expenseId) {
         logger.info("Marking expense as paid: {}", expenseId);
         
@@ -216,7 +216,7 @@ public class BudgetController {
     }
     
     @GetMapping("/expenses/pending")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<List<Map<String, Object>>> getPendingExpenses() {
         logger.debug("Fetching pending expenses");
         
@@ -229,7 +229,7 @@ public class BudgetController {
     }
     
     @GetMapping("/expenses/category/{categoryId}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<List<Map<String, Object>>> getExpensesByCategory(@PathVariable Long categoryId) {
         logger.debug("Fetching expenses for category: {}", categoryId);
         
@@ -248,7 +248,7 @@ public class BudgetController {
     }
     
     @GetMapping("/expenses/date-range")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<List<Map<String, Object>>> getExpensesByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
@@ -265,7 +265,7 @@ public class BudgetController {
     
     // Analytics and Reporting Endpoints
     @GetMapping("/summary")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<Map<String, Object>> getBudgetSummary() {
         logger.debug("Fetching budget summary");
         
@@ -274,7 +274,7 @@ public class BudgetController {
     }
     
     @GetMapping("/summary/department/{department}")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<Map<String, Object>> getDepartmentBudgetSummary(@PathVariable String department) {
         logger.debug("Fetching budget summary for department: {}", department);
         
@@ -283,7 +283,7 @@ public class BudgetController {
     }
     
     @GetMapping("/categories/over-budget")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<List<Map<String, Object>>> getOverBudgetCategories() {
         logger.debug("Fetching over-budget categories");
         
@@ -296,7 +296,7 @@ public class BudgetController {
     }
     
     @GetMapping("/report/monthly")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<Map<String, Object>> getMonthlyExpenseReport(
             @RequestParam int year,
             @RequestParam int month) {
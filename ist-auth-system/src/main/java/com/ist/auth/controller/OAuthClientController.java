@@ -1,6 +1,7 @@
 package com.ist.auth.controller;
 
 import com.ist.auth.entity.OAuthClient;
+import com.ist.auth.security.RequiresRoles;
 import com.ist.auth.service.OAuthClientService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -9,7 +10,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -32,7 +32,7 @@ public class OAuthClientController {
     private OAuthClientService clientService;
     
     @PostMapping("/register")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> registerClient(@Valid @RequestBody RegisterClientRequest request) {
         logger.info("Registering OAuth client: {}", request.clientName);
         
@@ -60,7 +60,7 @@ public class OAuthClientController {
     }
     
     @PutMapping("/{clientId}")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> updateClient(@PathVariable String clientId,
                                                           @Valid @RequestBody UpdateClientRequest request) {
         logger.info("Updating OAuth client: {}", clientId);
@@ -88,7 +88,7 @@ public class OAuthClientController {
     }
     
     @PostMapping("/{clientId}/deactivate")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> deactivateClient(@PathVariable String clientId) {
         logger.info("Deactivating OAuth client: {}", clientId);
         
@@ -104,7 +104,7 @@ public class OAuthClientController {
     }
     
     @PostMapping("/{clientId}/activate")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> activateClient(@PathVariable String clientId) {
         logger.info("Activating OAuth client: {}", clientId);
         
@@ -120,7 +120,7 @@ public class OAuthClientController {
     }
     
     @PostMapping("/{clientId}/regenerate-secret")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> regenerateClientSecret(@PathVariable String clientId) {
         logger.info("Regenerating client secret for: {}", clientId);
         
@@ -139,7 +139,7 @@ public class OAuthClientController {
     }
     
     @GetMapping
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<List<Map<String, Object>>> getAllClients() {
         logger.debug("Fetching all OAuth clients");
         
@@ -152,7 +152,7 @@ public class OAuthClientController {
     }
     
     @GetMapping("/active")
-    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @RequiresRoles({"ADMIN", "TEACHER"})
     public ResponseEntity<List<Map<String, Object>>> getActiveClients() {
         logger.debug("Fetching active OAuth clients");
         
@@ -165,7 +165,7 @@ public class OAuthClientController {
     }
     
     @GetMapping("/{clientId}")
-    @PreAuthorize("hasRole('ADMIN')")
+    @RequiresRoles("ADMIN")
     public ResponseEntity<Map<String, Object>> getClient(@PathVariable String clientId) {
         logger.debug("Fetching OAuth client: {}", clientId);
         
@@ -0,0 +1,20 @@
+package com.ist.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Token pair returned by login, refresh and OAuth sign-in. Refresh responses carry no user.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public record AuthResponse(
+        String accessToken,
+        String refreshToken,
+        String tokenType,
+        long expiresIn,
+        @JsonInclude(JsonInclude.Include.NON_NULL) UserResponse user) {
+    
+    public static AuthResponse bearer(String accessToken, String refreshToken, long expiresIn, UserResponse user) {
+        return new AuthResponse(accessToken, refreshToken, "Bearer", expiresIn, user);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ist.auth.dto;
+
+/**
+ * Response returned after a successful registration
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public record RegistrationResponse(String message, UserResponse user, boolean emailSent) {
+}
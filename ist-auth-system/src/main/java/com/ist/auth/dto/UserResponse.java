@@ -0,0 +1,39 @@
+package com.ist.auth.dto;
+
+import com.ist.auth.entity.Role;
+import com.ist.auth.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * User details returned by the authentication endpoints
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public record UserResponse(
+        Long id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        Boolean emailVerified,
+        String authProvider,
+        List<String> roles,
+        LocalDateTime createdAt,
+        LocalDateTime lastLogin) {
+    
+    public static UserResponse from(User user) {
+        return new UserResponse(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getEmailVerified(),
+                user.getAuthProvider() != null ? user.getAuthProvider().toString() : "UNKNOWN",
+                user.getRoles().stream().map(Role::getName).toList(),
+                user.getCreatedAt(),
+                user.getLastLogin());
+    }
+}
@@ -12,8 +12,10 @@ import java.time.LocalDateTime;
  * Year: 2025
  */
 @Entity
-@Table(name = "refresh_tokens", indexes = {
-    @Index(name = "idx_refresh_token", columnList = "token"),
+@Table(name = "refresh_tokens", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_refresh_tokens_token_hash", columnNames = "token_hash")
+}, indexes = {
+    @Index(name = "idx_refresh_token_family", columnList = "family_id"),
     @Index(name = "idx_refresh_token_user", columnList = "user_id")
 })
 @EntityListeners(AuditingEntityListener.class)
@@ -23,9 +25,17 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(unique = true, nullable = false, length = 500)
+    // Only the SHA-256 of the token is stored; the raw value exists in memory for the response
+    @Transient
     private String token;
     
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+    
+    // Every token rotated from the same login shares the family of that login's token
+    @Column(name = "family_id", length = 36)
+    private String familyId;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -36,6 +46,14 @@ public class RefreshToken {
     @Column(name = "revoked", nullable = false)
     private Boolean revoked = false;
     
+    // Set only when the token is spent by rotation; logout and family revocation leave it null
+    @Column(name = "rotated_at")
+    private LocalDateTime rotatedAt;
+    
+    // Set once the token has handed out its single successor within the reuse grace; null counts as false
+    @Column(name = "grace_used")
+    private Boolean graceUsed;
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -43,8 +61,10 @@ public class RefreshToken {
     // Constructors
     public RefreshToken() {}
     
-    public RefreshToken(String token, User user, LocalDateTime expiresAt) {
+    public RefreshToken(String token, String tokenHash, String familyId, User user, LocalDateTime expiresAt) {
         this.token = token;
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
         this.user = user;
         this.expiresAt = expiresAt;
     }
@@ -56,6 +76,12 @@ public class RefreshToken {
     public String getToken() { return token; }
     public void setToken(String token) { this.token = token; }
     
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    
+    public String getFamilyId() { return familyId; }
+    public void setFamilyId(String familyId) { this.familyId = familyId; }
+    
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
     
@@ -65,6 +91,12 @@ public class RefreshToken {
     public Boolean getRevoked() { return revoked; }
     public void setRevoked(Boolean revoked) { this.revoked = revoked; }
     
+    public LocalDateTime getRotatedAt() { return rotatedAt; }
+    public void setRotatedAt(LocalDateTime rotatedAt) { this.rotatedAt = rotatedAt; }
+    
+    public Boolean getGraceUsed() { return graceUsed; }
+    public void setGraceUsed(Boolean graceUsed) { this.graceUsed = graceUsed; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -85,7 +117,7 @@ public class RefreshToken {
     public String toString() {
         return "RefreshToken{" +
                 "id=" + id +
-                ", token='" + token.substring(0, Math.min(token.length(), 20)) + "...'" +
+                ", familyId='" + familyId + "'" +
                 ", userId=" + (user != null ? user.getId() : null) +
                 ", expiresAt=" + expiresAt +
                 ", revoked=" + revoked +
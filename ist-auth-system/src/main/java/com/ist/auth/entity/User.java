@@ -10,6 +10,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -18,27 +19,39 @@ import java.util.Set;
  * Year: 2025
  */
 @Entity
-@Table(name = "users", indexes = {
-    @Index(name = "idx_user_email", columnList = "email"),
-    @Index(name = "idx_user_username", columnList = "username")
+@Table(name = "users", uniqueConstraints = {
+    @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email_norm"),
+    @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username_norm")
 })
 @EntityListeners(AuditingEntityListener.class)
 public class User {
     
+    public static final String EMAIL_CONSTRAINT = "uk_users_email_norm";
+    public static final String USERNAME_CONSTRAINT = "uk_users_username_norm";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
     @NotBlank(message = "Username is required")
     @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
-    @Column(unique = true, nullable = false)
+    // New usernames are kept free of '@' by registration, so login can route such input to the
+    // email index; legacy rows that have one must still save
+    @Column(nullable = false)
     private String username;
     
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
     
+    // Lowercased copies carrying the unique indexes; nullable until the backfill has run
+    @Column(name = "username_norm")
+    private String usernameNorm;
+    
+    @Column(name = "email_norm")
+    private String emailNorm;
+    
     @Column(name = "password_hash")
     private String passwordHash;
     
@@ -64,6 +77,9 @@ public class User {
     @Column(name = "failed_login_attempts")
     private Integer failedLoginAttempts = 0;
     
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+    
     @Column(name = "last_login")
     private LocalDateTime lastLogin;
     
@@ -110,6 +126,10 @@ public class User {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
     
+    public String getUsernameNorm() { return usernameNorm; }
+    
+    public String getEmailNorm() { return emailNorm; }
+    
     public String getPasswordHash() { return passwordHash; }
     public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
     
@@ -131,6 +151,9 @@ public class User {
     public Integer getFailedLoginAttempts() { return failedLoginAttempts; }
     public void setFailedLoginAttempts(Integer failedLoginAttempts) { this.failedLoginAttempts = failedLoginAttempts; }
     
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    
     public LocalDateTime getLastLogin() { return lastLogin; }
     public void setLastLogin(LocalDateTime lastLogin) { this.lastLogin = lastLogin; }
     
@@ -150,6 +173,21 @@ public class User {
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
     // Helper methods
+    
+    /**
+     * Case-insensitive form of an email or username, as stored in the *_norm columns
+     */
+    public static String normalizeIdentity(String identity) {
+        return identity == null ? null : identity.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    @PrePersist
+    @PreUpdate
+    void normalizeIdentifiers() {
+        this.usernameNorm = normalizeIdentity(username);
+        this.emailNorm = normalizeIdentity(email);
+    }
+    
     public String getFullName() {
         return firstName + " " + lastName;
     }
@@ -179,6 +217,14 @@ public class User {
     public void resetFailedLoginAttempts() {
         this.failedLoginAttempts = 0;
         this.accountLocked = false;
+        this.lockedUntil = null;
+    }
+    
+    /**
+     * Locked and, for timed lockouts, still inside the lock window
+     */
+    public boolean isLockActive() {
+        return Boolean.TRUE.equals(accountLocked) && (lockedUntil == null || lockedUntil.isAfter(LocalDateTime.now()));
     }
     
     @Override
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,7 +21,10 @@ import java.util.Optional;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    
+    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
     
     List<RefreshToken> findByUser(User user);
     
@@ -31,9 +35,56 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user = :user")
     void revokeAllUserTokens(@Param("user") User user);
     
+    /**
+     * Spends a token; the affected-row count is 1 only for the caller that won the rotation
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true, rt.rotatedAt = :now "
+            + "WHERE rt.tokenHash = :tokenHash AND rt.revoked = false AND rt.expiresAt > :now")
+    int revokeIfActive(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+    
+    /**
+     * Claims the one extra successor a spent token may hand out: the affected-row count is 1
+     * only when the token was rotated after {@code since}, has not used its grace yet and its
+     * family still has an active token, i.e. the family was not revoked in the meantime
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.graceUsed = true WHERE rt.tokenHash = :tokenHash AND rt.rotatedAt > :since "
+            + "AND (rt.graceUsed IS NULL OR rt.graceUsed = false) "
+            + "AND EXISTS (SELECT 1 FROM RefreshToken live WHERE live.familyId = rt.familyId "
+            + "AND live.revoked = false AND live.expiresAt > :now)")
+    int claimReuseGrace(@Param("tokenHash") String tokenHash, @Param("since") LocalDateTime since,
+                        @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.familyId = :familyId AND rt.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.id = :id AND rt.revoked = false")
+    int revokeById(@Param("id") Long id);
+    
+    /**
+     * Revokes all but the newest {@code keep} active tokens of a user in one statement
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE refresh_tokens SET revoked = true WHERE user_id = :userId AND revoked = false AND id NOT IN "
+            + "(SELECT id FROM refresh_tokens WHERE user_id = :userId AND revoked = false ORDER BY id DESC FETCH FIRST :keep ROWS ONLY)",
+            nativeQuery = true)
+    int revokeAllButNewest(@Param("userId") Long userId, @Param("keep") int keep);
+    
+    /**
+     * Deletes by expiry only: a spent token has to stay until it expires, or presenting it
+     * again would look like an unknown token instead of a replay
+     */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :cutoffTime OR rt.revoked = true")
-    void deleteExpiredAndRevokedTokens(@Param("cutoffTime") LocalDateTime cutoffTime);
+    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :cutoffTime")
+    int deleteExpiredTokens(@Param("cutoffTime") LocalDateTime cutoffTime);
     
     @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.user = :user AND rt.revoked = false")
     long countValidTokensByUser(@Param("user") User user);
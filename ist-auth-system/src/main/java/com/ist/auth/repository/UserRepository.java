@@ -2,11 +2,14 @@ package com.ist.auth.repository;
 
 import com.ist.auth.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,15 +21,30 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
-    Optional<User> findByEmail(String email);
+    // Identity lookups take values already passed through User.normalizeIdentity
+    Optional<User> findByEmailNorm(String emailNorm);
     
-    Optional<User> findByUsername(String username);
+    Optional<User> findByUsernameNorm(String usernameNorm);
     
-    Optional<User> findByEmailOrUsername(String email, String username);
+    boolean existsByEmailNorm(String emailNorm);
     
-    boolean existsByEmail(String email);
+    boolean existsByUsernameNorm(String usernameNorm);
     
-    boolean existsByUsername(String username);
+    /**
+     * Rows not yet normalized, e.g. inserted by an instance on the previous release during a
+     * rolling deploy, matched exactly on the raw column
+     */
+    @Query("SELECT u FROM User u WHERE u.emailNorm IS NULL AND u.email IN :candidates")
+    List<User> findUnnormalizedByEmail(@Param("candidates") Collection<String> candidates);
+    
+    @Query("SELECT u FROM User u WHERE u.usernameNorm IS NULL AND u.username IN :candidates")
+    List<User> findUnnormalizedByUsername(@Param("candidates") Collection<String> candidates);
+    
+    /**
+     * Normalized usernames matching a LIKE pattern that escapes with '!', for suffix allocation
+     */
+    @Query("SELECT u.usernameNorm FROM User u WHERE u.usernameNorm LIKE :pattern ESCAPE '!'")
+    List<String> findUsernameNormsLike(@Param("pattern") String pattern);
     
     @Query("SELECT u FROM User u WHERE u.authProvider = :provider AND u.providerId = :providerId")
     Optional<User> findByProviderAndProviderId(@Param("provider") String provider, @Param("providerId") String providerId);
@@ -45,4 +63,41 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.lastLogin >= :startDate")
     long countActiveUsersAfter(@Param("startDate") LocalDateTime startDate);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.accountLocked = true, u.failedLoginAttempts = :attempts, u.lockedUntil = :lockedUntil WHERE u.id = :id")
+    int lockAccount(@Param("id") Long id, @Param("attempts") int attempts, @Param("lockedUntil") LocalDateTime lockedUntil);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.accountLocked = false, u.failedLoginAttempts = 0, u.lockedUntil = null WHERE u.id = :id")
+    int releaseLock(@Param("id") Long id);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.accountLocked = false, u.failedLoginAttempts = 0, u.lockedUntil = null WHERE u.accountLocked = true AND u.lockedUntil < :now")
+    int releaseExpiredLocks(@Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.emailVerified = true WHERE u.id = :id AND u.emailVerified = false")
+    int markEmailVerified(@Param("id") Long id);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :id")
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO user_roles (user_id, role_id) SELECT :userId, :roleId WHERE NOT EXISTS "
+            + "(SELECT 1 FROM user_roles WHERE user_id = :userId AND role_id = :roleId)", nativeQuery = true)
+    int insertRole(@Param("userId") Long userId, @Param("roleId") Long roleId);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_roles WHERE user_id = :userId AND role_id = :roleId", nativeQuery = true)
+    int deleteRole(@Param("userId") Long userId, @Param("roleId") Long roleId);
+
 }
@@ -0,0 +1,160 @@
+package com.ist.auth.security;
+
+import com.ist.auth.service.JwtService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Adaptive load shedding filter.
+ * Requests carrying a bearer token whose signature and expiry verify are HIGH priority,
+ * including authenticated auth calls such as logout; anonymous requests, unverifiable
+ * tokens and the credential entry points (login, register, refresh, email verification)
+ * are LOW priority and are shed first. The verdict is left on the request so the JWT filter
+ * does not verify the token again. Login and register report their latency separately,
+ * since BCrypt makes them orders of magnitude slower.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyFilter.class);
+    
+    private static final Set<String> HASHING_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+    
+    // Anonymous entry points; a bearer header on these does not make the caller authenticated
+    private static final Set<String> ENTRY_POINT_PATHS = Set.of("/api/auth/login", "/api/auth/register",
+            "/api/auth/refresh", "/api/auth/verify-email");
+    
+    /**
+     * Request attribute holding whether the bearer token verified, as a {@link Boolean}
+     */
+    public static final String TOKEN_VERIFIED_ATTRIBUTE = AdaptiveConcurrencyFilter.class.getName() + ".tokenVerified";
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Value("${app.adaptive-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.adaptive-limit.initial-limit:100}")
+    private int initialLimit;
+    
+    @Value("${app.adaptive-limit.min-limit:10}")
+    private int minLimit;
+    
+    @Value("${app.adaptive-limit.max-limit:400}")
+    private int maxLimit;
+    
+    @Value("${app.adaptive-limit.latency-tolerance:2.0}")
+    private double latencyTolerance;
+    
+    @Value("${app.adaptive-limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+    
+    @Value("${app.adaptive-limit.low-priority-share:0.6}")
+    private double lowPriorityShare;
+    
+    @Value("${app.adaptive-limit.window-size:100}")
+    private int windowSize;
+    
+    private AdaptiveConcurrencyLimiter limiter;
+    
+    @PostConstruct
+    public void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyTolerance,
+                backoffRatio, lowPriorityShare, windowSize);
+        
+        Gauge.builder("auth.adaptive.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("auth.adaptive.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .description("Requests currently admitted by the adaptive limiter")
+                .register(meterRegistry);
+        for (AdaptiveConcurrencyLimiter.LatencyGroup group : AdaptiveConcurrencyLimiter.LatencyGroup.values()) {
+            Gauge.builder("auth.adaptive.latency.p50", limiter, l -> l.getLastP50Millis(group))
+                    .tag("group", group.name().toLowerCase())
+                    .baseUnit("milliseconds")
+                    .description("Median latency of the group's last completed sample window")
+                    .register(meterRegistry);
+        }
+        for (AdaptiveConcurrencyLimiter.Priority priority : AdaptiveConcurrencyLimiter.Priority.values()) {
+            FunctionCounter.builder("auth.adaptive.rejected", limiter, l -> l.getRejected(priority))
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Requests shed by the adaptive limiter")
+                    .register(meterRegistry);
+        }
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        
+        // Never shed health probes, otherwise an overloaded instance gets restarted instead of recovering
+        String path = RejectedRequestWriter.pathWithinApplication(request);
+        return path.startsWith("/actuator") || path.startsWith("/api/actuator") || path.equals("/health");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        
+        String path = RejectedRequestWriter.pathWithinApplication(request);
+        AdaptiveConcurrencyLimiter.Priority priority = classify(request, path);
+        AdaptiveConcurrencyLimiter.LatencyGroup group = HASHING_PATHS.contains(path)
+                ? AdaptiveConcurrencyLimiter.LatencyGroup.HASHING
+                : AdaptiveConcurrencyLimiter.LatencyGroup.STANDARD;
+        if (!limiter.tryAcquire(priority)) {
+            logger.warn("Adaptive limit {} reached, shedding {} priority request to {}",
+                    limiter.getLimit(), priority, request.getRequestURI());
+            RejectedRequestWriter.write(request, response, HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable",
+                    "Server is overloaded, please retry shortly", 1);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestCompletion.onComplete(request, () -> limiter.release(group, System.nanoTime() - start));
+        }
+    }
+    
+    private AdaptiveConcurrencyLimiter.Priority classify(HttpServletRequest request, String path) {
+        if (ENTRY_POINT_PATHS.contains(path)) {
+            return AdaptiveConcurrencyLimiter.Priority.LOW;
+        }
+        
+        String authorization = request.getHeader("Authorization");
+        if (!StringUtils.hasText(authorization) || !authorization.startsWith("Bearer ")) {
+            return AdaptiveConcurrencyLimiter.Priority.LOW;
+        }
+        
+        // Any header can claim to be a bearer token; only a verified one may skip low priority shedding
+        boolean verified = jwtService.validateToken(authorization.substring(7));
+        request.setAttribute(TOKEN_VERIFIED_ATTRIBUTE, verified);
+        return verified ? AdaptiveConcurrencyLimiter.Priority.HIGH : AdaptiveConcurrencyLimiter.Priority.LOW;
+    }
+}
@@ -0,0 +1,148 @@
+package com.ist.auth.security;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limiter driven by observed request latency.
+ * Latency is tracked per {@link LatencyGroup}, each with its own sample window and slowly
+ * drifting baseline, so a shift in traffic mix between password-hashing routes and fast
+ * routes does not read as a regression. Every completed window compares its p50 against its
+ * group's baseline: the limit is cut multiplicatively when p50 exceeds baseline * tolerance
+ * and grows by one when latency is healthy and demand is close to the current limit.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public class AdaptiveConcurrencyLimiter {
+    
+    public enum Priority { HIGH, LOW }
+    
+    /**
+     * Routes whose latency is dominated by password hashing, and everything else
+     */
+    public enum LatencyGroup { HASHING, STANDARD }
+    
+    private static final double BASELINE_DRIFT = 1.01;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final double lowPriorityShare;
+    
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong rejectedHigh = new AtomicLong();
+    private final AtomicLong rejectedLow = new AtomicLong();
+    
+    private volatile int limit;
+    
+    private final LatencyWindow[] windows;
+    
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      double backoffRatio, double lowPriorityShare, int windowSize) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.lowPriorityShare = lowPriorityShare;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windows = new LatencyWindow[LatencyGroup.values().length];
+        for (LatencyGroup group : LatencyGroup.values()) {
+            windows[group.ordinal()] = new LatencyWindow(windowSize);
+        }
+    }
+    
+    /**
+     * Claims an in-flight slot. Low priority traffic may only use its share of the limit,
+     * which keeps headroom for high priority traffic when the limit shrinks.
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = priority == Priority.HIGH ? limit : Math.max(1, (int) (limit * lowPriorityShare));
+        
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                (priority == Priority.HIGH ? rejectedHigh : rejectedLow).incrementAndGet();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    public void release(LatencyGroup group, long latencyNanos) {
+        int inflightAtCompletion = inflight.getAndDecrement();
+        LatencyWindow window = windows[group.ordinal()];
+        synchronized (window) {
+            if (window.record(latencyNanos, inflightAtCompletion)) {
+                adjustLimit(window);
+            }
+        }
+    }
+    
+    private void adjustLimit(LatencyWindow window) {
+        long p50 = window.p50Nanos();
+        
+        // The baseline follows the fastest p50 seen and drifts up slowly so it can track a permanently slower backend
+        long baseline = window.baselineNanos == 0 ? p50 : Math.min(p50, (long) (window.baselineNanos * BASELINE_DRIFT));
+        window.baselineNanos = baseline;
+        window.lastP50Nanos = p50;
+        
+        synchronized (this) {
+            int current = limit;
+            if (p50 > baseline * tolerance) {
+                limit = Math.max(minLimit, (int) (current * backoffRatio));
+            } else if (window.peakInflight >= current * 0.8) {
+                limit = Math.min(maxLimit, current + 1);
+            }
+        }
+        window.reset();
+    }
+    
+    public int getLimit() { return limit; }
+    
+    public int getInflight() { return inflight.get(); }
+    
+    public double getLastP50Millis(LatencyGroup group) { return windows[group.ordinal()].lastP50Nanos / 1_000_000.0; }
+    
+    public double getBaselineMillis(LatencyGroup group) { return windows[group.ordinal()].baselineNanos / 1_000_000.0; }
+    
+    public long getRejected(Priority priority) {
+        return priority == Priority.HIGH ? rejectedHigh.get() : rejectedLow.get();
+    }
+    
+    private static final class LatencyWindow {
+        
+        private final long[] samples;
+        private int count;
+        private int peakInflight;
+        private volatile long lastP50Nanos;
+        private volatile long baselineNanos;
+        
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+        
+        /**
+         * Adds a sample and reports whether the window is now full
+         */
+        boolean record(long latencyNanos, int inflightAtCompletion) {
+            samples[count++] = latencyNanos;
+            peakInflight = Math.max(peakInflight, inflightAtCompletion);
+            return count == samples.length;
+        }
+        
+        long p50Nanos() {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+        
+        void reset() {
+            count = 0;
+            peakInflight = 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ist.auth.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost that best fits a target hashing latency on the current machine.
+ * Each cost step doubles the work, so one measurement at the minimum cost is extrapolated.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public final class BCryptCostCalibrator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+    
+    private static final int SAMPLES = 3;
+    
+    private BCryptCostCalibrator() {}
+    
+    public static int calibrate(Duration targetLatency, int minCost, int maxCost) {
+        long targetNanos = targetLatency.toNanos();
+        
+        // Warm up the JIT before measuring
+        BCrypt.hashpw("calibration", BCrypt.gensalt(4));
+        
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", BCrypt.gensalt(minCost));
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long baseNanos = samples[SAMPLES / 2];
+        
+        int cost = minCost;
+        long estimate = baseNanos;
+        while (cost < maxCost && estimate * 2 <= targetNanos) {
+            estimate *= 2;
+            cost++;
+        }
+        
+        logger.info("Calibrated BCrypt cost {} (~{} ms per hash, target {} ms, cost {} measured at {} ms)",
+                cost, estimate / 1_000_000, targetLatency.toMillis(), minCost, baseNanos / 1_000_000);
+        return cost;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ist.auth.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that reads up to a limit of the body ahead of the controller so a filter
+ * can inspect it. The buffered bytes are replayed before the rest of the original stream.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+final class BufferedBodyRequest extends HttpServletRequestWrapper {
+    
+    private final byte[] prefix;
+    private final boolean complete;
+    private final ServletInputStream inputStream;
+    
+    BufferedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        ServletInputStream original = request.getInputStream();
+        this.prefix = original.readNBytes(maxBytes + 1);
+        this.complete = prefix.length <= maxBytes;
+        this.inputStream = new ReplayingInputStream(prefix, original);
+    }
+    
+    /**
+     * The whole body, or null when it is larger than the buffer limit
+     */
+    byte[] getBufferedBody() {
+        return complete ? prefix : null;
+    }
+    
+    @Override
+    public ServletInputStream getInputStream() {
+        return inputStream;
+    }
+    
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(inputStream, charset));
+    }
+    
+    private static final class ReplayingInputStream extends ServletInputStream {
+        
+        private final byte[] prefix;
+        private final ServletInputStream remainder;
+        private int position;
+        
+        private ReplayingInputStream(byte[] prefix, ServletInputStream remainder) {
+            this.prefix = prefix;
+            this.remainder = remainder;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (position < prefix.length) {
+                return prefix[position++] & 0xff;
+            }
+            return remainder.read();
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position < prefix.length) {
+                int count = Math.min(length, prefix.length - position);
+                System.arraycopy(prefix, position, buffer, offset, count);
+                position += count;
+                return count;
+            }
+            return remainder.read(buffer, offset, length);
+        }
+        
+        @Override
+        public boolean isFinished() {
+            return position >= prefix.length && remainder.isFinished();
+        }
+        
+        @Override
+        public boolean isReady() {
+            return position < prefix.length || remainder.isReady();
+        }
+        
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            remainder.setReadListener(readListener);
+        }
+    }
+}
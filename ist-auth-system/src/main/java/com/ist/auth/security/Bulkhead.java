@@ -0,0 +1,76 @@
+package com.ist.auth.security;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded-concurrency compartment with a short bounded wait queue
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public class Bulkhead {
+    
+    private final String name;
+    private final int maxConcurrent;
+    private final int queueSize;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    public Bulkhead(String name, int maxConcurrent, int queueSize, long maxWaitMillis) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.queueSize = queueSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+    
+    /**
+     * Takes a permit immediately if one is free, otherwise joins the queue for at most
+     * the configured wait. Returns false straight away when the queue is already full.
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        
+        if (queued.incrementAndGet() > queueSize) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            rejected.incrementAndGet();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+    
+    public void release() {
+        permits.release();
+    }
+    
+    public String getName() { return name; }
+    
+    public int getMaxConcurrent() { return maxConcurrent; }
+    
+    public int getActive() { return maxConcurrent - permits.availablePermits(); }
+    
+    public int getQueued() { return queued.get(); }
+    
+    public long getRejected() { return rejected.get(); }
+    
+    public double getSaturation() { return (double) getActive() / maxConcurrent; }
+}
@@ -0,0 +1,126 @@
+package com.ist.auth.security;
+
+import com.ist.auth.config.BulkheadProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulkhead Filter isolating expensive endpoint groups (login, register) from cheap ones
+ * so a flood on one group cannot take every container thread
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+public class BulkheadFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadFilter.class);
+    
+    @Autowired
+    private BulkheadProperties properties;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final List<Route> routes = new ArrayList<>();
+    
+    @PostConstruct
+    public void init() {
+        for (Map.Entry<String, BulkheadProperties.Group> entry : properties.getGroups().entrySet()) {
+            String name = entry.getKey();
+            BulkheadProperties.Group group = entry.getValue();
+            
+            Bulkhead bulkhead = new Bulkhead(name, group.getMaxConcurrent(), group.getQueueSize(),
+                    group.getMaxWait().toMillis());
+            registerMetrics(bulkhead);
+            
+            for (String path : group.getPaths()) {
+                routes.add(new Route(PathPatternParser.defaultInstance.parse(path), bulkhead,
+                        group.getRetryAfter().toSeconds()));
+            }
+            
+            logger.info("Bulkhead '{}' configured: maxConcurrent={}, queueSize={}, maxWait={}ms, paths={}",
+                    name, group.getMaxConcurrent(), group.getQueueSize(), group.getMaxWait().toMillis(), group.getPaths());
+        }
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || routes.isEmpty();
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        
+        Route route = match(RejectedRequestWriter.pathWithinApplication(request));
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        Bulkhead bulkhead = route.bulkhead();
+        if (!bulkhead.tryAcquire()) {
+            logger.warn("Bulkhead '{}' saturated, shedding request to {}", bulkhead.getName(), request.getRequestURI());
+            RejectedRequestWriter.write(request, response, HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests",
+                    "Server is busy, please retry shortly", route.retryAfterSeconds());
+            return;
+        }
+        
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestCompletion.onComplete(request, bulkhead::release);
+        }
+    }
+    
+    private Route match(String path) {
+        PathContainer pathContainer = PathContainer.parsePath(path);
+        for (Route route : routes) {
+            if (route.pattern().matches(pathContainer)) {
+                return route;
+            }
+        }
+        return null;
+    }
+    
+    private void registerMetrics(Bulkhead bulkhead) {
+        Gauge.builder("auth.bulkhead.active", bulkhead, Bulkhead::getActive)
+                .tag("group", bulkhead.getName())
+                .description("Requests currently executing inside the bulkhead")
+                .register(meterRegistry);
+        Gauge.builder("auth.bulkhead.queued", bulkhead, Bulkhead::getQueued)
+                .tag("group", bulkhead.getName())
+                .description("Requests waiting for a bulkhead permit")
+                .register(meterRegistry);
+        Gauge.builder("auth.bulkhead.saturation", bulkhead, Bulkhead::getSaturation)
+                .tag("group", bulkhead.getName())
+                .description("Fraction of bulkhead permits in use")
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+                .tag("group", bulkhead.getName())
+                .description("Requests rejected with 429 because the bulkhead was full")
+                .register(meterRegistry);
+    }
+    
+    private record Route(PathPattern pattern, Bulkhead bulkhead, long retryAfterSeconds) {}
+}
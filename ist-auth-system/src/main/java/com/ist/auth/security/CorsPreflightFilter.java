@@ -0,0 +1,213 @@
+package com.ist.auth.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * CORS Preflight Filter answering OPTIONS preflight requests before the security filter chain.
+ * Origin patterns are compiled into a single regex and the verdict per origin is cached
+ * together with its precomputed response headers.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorsPreflightFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CorsPreflightFilter.class);
+    
+    private static final int MAX_CACHED_ORIGINS = 1024;
+    
+    private static final String VARY_VALUE = String.join(", ", HttpHeaders.ORIGIN,
+            HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+    
+    @Autowired
+    private CorsConfiguration corsConfiguration;
+    
+    private final Map<String, PreflightResponse> originCache = new ConcurrentHashMap<>();
+    
+    private Pattern allowedOrigins;
+    private Set<String> allowedMethods;
+    private boolean anyMethodAllowed;
+    private Set<String> allowedHeaders;
+    private boolean anyHeaderAllowed;
+    private String allowMethodsValue;
+    private String allowHeadersValue;
+    private String maxAgeValue;
+    private boolean allowCredentials;
+    
+    @PostConstruct
+    public void init() {
+        allowedOrigins = compileOriginPatterns(corsConfiguration.getAllowedOriginPatterns(), corsConfiguration.getAllowedOrigins());
+        
+        List<String> methods = corsConfiguration.getAllowedMethods() != null ? corsConfiguration.getAllowedMethods() : List.of();
+        anyMethodAllowed = methods.contains(CorsConfiguration.ALL);
+        allowedMethods = Set.copyOf(methods);
+        allowMethodsValue = String.join(", ", methods);
+        
+        List<String> headers = corsConfiguration.getAllowedHeaders() != null ? corsConfiguration.getAllowedHeaders() : List.of();
+        anyHeaderAllowed = headers.contains(CorsConfiguration.ALL);
+        allowedHeaders = headers.stream().map(h -> h.toLowerCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        allowHeadersValue = String.join(", ", headers);
+        
+        maxAgeValue = corsConfiguration.getMaxAge() != null ? corsConfiguration.getMaxAge().toString() : null;
+        allowCredentials = Boolean.TRUE.equals(corsConfiguration.getAllowCredentials());
+        
+        logger.info("CORS preflight filter initialized with origin pattern: {}", allowedOrigins.pattern());
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !CorsUtils.isPreFlightRequest(request);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        PreflightResponse preflight = originCache.get(origin);
+        if (preflight == null) {
+            preflight = resolve(origin);
+            if (originCache.size() < MAX_CACHED_ORIGINS) {
+                originCache.putIfAbsent(origin, preflight);
+            }
+        }
+        
+        response.setHeader(HttpHeaders.VARY, VARY_VALUE);
+        
+        if (!preflight.allowed() || !isMethodAllowed(request) || !areHeadersAllowed(request)) {
+            logger.debug("Rejected CORS preflight from origin: {}", origin);
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.getWriter().write("Invalid CORS request");
+            return;
+        }
+        
+        preflight.headers().forEach(response::setHeader);
+        if (anyMethodAllowed) {
+            // As CorsConfiguration does, a wildcard answers with the requested method rather than a literal "*"
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS,
+                    request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD));
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+    }
+    
+    private PreflightResponse resolve(String origin) {
+        String normalized = origin.endsWith("/") ? origin.substring(0, origin.length() - 1) : origin;
+        if (!allowedOrigins.matcher(normalized).matches()) {
+            return new PreflightResponse(false, Map.of());
+        }
+        
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+        headers.put(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, allowMethodsValue);
+        if (StringUtils.hasText(allowHeadersValue)) {
+            headers.put(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, allowHeadersValue);
+        }
+        if (allowCredentials) {
+            headers.put(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+        }
+        if (maxAgeValue != null) {
+            headers.put(HttpHeaders.ACCESS_CONTROL_MAX_AGE, maxAgeValue);
+        }
+        return new PreflightResponse(true, Map.copyOf(headers));
+    }
+    
+    private boolean isMethodAllowed(HttpServletRequest request) {
+        if (anyMethodAllowed) {
+            return StringUtils.hasText(request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD));
+        }
+        return allowedMethods.contains(request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD));
+    }
+    
+    private boolean areHeadersAllowed(HttpServletRequest request) {
+        if (anyHeaderAllowed) {
+            return true;
+        }
+        
+        String requested = request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+        if (!StringUtils.hasText(requested)) {
+            return true;
+        }
+        
+        for (String header : requested.split(",")) {
+            String name = header.trim().toLowerCase(Locale.ROOT);
+            if (!name.isEmpty() && !allowedHeaders.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Compiles all origin patterns into one alternation, using the same semantics as
+     * {@link CorsConfiguration#setAllowedOriginPatterns}: '*' matches any sequence of characters.
+     */
+    static Pattern compileOriginPatterns(List<String> patterns, List<String> exactOrigins) {
+        Set<String> alternatives = new HashSet<>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                alternatives.add(toRegex(pattern.trim()));
+            }
+        }
+        if (exactOrigins != null) {
+            for (String origin : exactOrigins) {
+                if (!CorsConfiguration.ALL.equals(origin)) {
+                    alternatives.add(Pattern.quote(origin.trim()));
+                }
+            }
+        }
+        
+        if (alternatives.isEmpty()) {
+            return Pattern.compile("(?!)");
+        }
+        return Pattern.compile(alternatives.stream()
+                .sorted()
+                .map(regex -> "(?:" + regex + ")")
+                .collect(Collectors.joining("|")));
+    }
+    
+    private static String toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        int wildcard;
+        while ((wildcard = pattern.indexOf('*', start)) >= 0) {
+            if (wildcard > start) {
+                regex.append(Pattern.quote(pattern.substring(start, wildcard)));
+            }
+            regex.append(".*");
+            start = wildcard + 1;
+        }
+        if (start < pattern.length()) {
+            regex.append(Pattern.quote(pattern.substring(start)));
+        }
+        return regex.toString();
+    }
+    
+    private record PreflightResponse(boolean allowed, Map<String, String> headers) {}
+}
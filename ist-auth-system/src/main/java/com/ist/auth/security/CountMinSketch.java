@@ -0,0 +1,98 @@
+package com.ist.auth.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Count-Min sketch with conservative update. Memory is fixed at width x depth
+ * counters however many distinct keys are counted; estimates never undercount and
+ * overcount by at most about total / width with high probability.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public final class CountMinSketch {
+    
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+    
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+    
+    /**
+     * Counts one occurrence and returns the new estimate. Only counters below the new
+     * estimate are raised, which keeps collisions from inflating other keys.
+     */
+    public long add(String key) {
+        int[] cells = cells(key);
+        long target = min(cells) + 1;
+        for (int cell : cells) {
+            long current = counters.get(cell);
+            while (current < target && !counters.compareAndSet(cell, current, target)) {
+                current = counters.get(cell);
+            }
+        }
+        return target;
+    }
+    
+    public long estimate(String key) {
+        return min(cells(key));
+    }
+    
+    /**
+     * Halves every counter so old traffic fades out; called once per decay interval
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            long current = counters.get(i);
+            while (current > 0 && !counters.compareAndSet(i, current, current >>> 1)) {
+                current = counters.get(i);
+            }
+        }
+    }
+    
+    private int[] cells(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1) | 1;
+        int[] cells = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            cells[row] = row * width + (int) Math.floorMod(h1 + row * h2, (long) width);
+        }
+        return cells;
+    }
+    
+    private long min(int[] cells) {
+        long min = Long.MAX_VALUE;
+        for (int cell : cells) {
+            min = Math.min(min, counters.get(cell));
+        }
+        return min;
+    }
+    
+    private static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+    
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb53a8b7cb71bL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
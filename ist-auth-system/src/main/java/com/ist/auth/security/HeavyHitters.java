@@ -0,0 +1,102 @@
+package com.ist.auth.security;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-K heavy hitters over a Count-Min sketch. The sketch counts every key in fixed memory;
+ * only keys whose estimate reaches the smallest tracked estimate enter the K-entry table, so
+ * the lock is taken for candidates and not for the long tail. Tracked keys also carry an
+ * exact count of the occurrences seen since they entered the table, which, unlike the
+ * estimate, is never inflated by other keys sharing their sketch cells.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public final class HeavyHitters {
+    
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<String, Entry> top = new HashMap<>();
+    
+    private volatile long floor;
+    
+    public HeavyHitters(int width, int depth, int capacity) {
+        this.sketch = new CountMinSketch(width, depth);
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Counts one occurrence of the key and returns its estimated count
+     */
+    public long record(String key) {
+        long estimate = sketch.add(key);
+        if (estimate >= floor) {
+            offer(key, estimate);
+        }
+        return estimate;
+    }
+    
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+    
+    /**
+     * Exact count since the key entered the table, or 0 when it is not tracked. Never more
+     * than the true count, so it confirms an estimate before acting on it.
+     */
+    public synchronized long exactCount(String key) {
+        Entry entry = top.get(key);
+        return entry != null ? entry.exact : 0;
+    }
+    
+    public synchronized List<Map.Entry<String, Long>> top(int limit) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(top.size());
+        top.forEach((key, entry) -> entries.add(Map.entry(key, entry.estimate)));
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+    
+    public synchronized void decay() {
+        sketch.halve();
+        top.values().forEach(entry -> {
+            entry.estimate >>>= 1;
+            entry.exact >>>= 1;
+        });
+        top.values().removeIf(entry -> entry.estimate == 0);
+        updateFloor();
+    }
+    
+    private synchronized void offer(String key, long estimate) {
+        Entry entry = top.get(key);
+        if (entry != null) {
+            entry.estimate = estimate;
+            entry.exact++;
+        } else {
+            top.put(key, new Entry(estimate));
+            if (top.size() > capacity) {
+                top.entrySet().stream()
+                        .min(Comparator.comparingLong(candidate -> candidate.getValue().estimate))
+                        .map(Map.Entry::getKey)
+                        .ifPresent(top::remove);
+            }
+        }
+        updateFloor();
+    }
+    
+    private void updateFloor() {
+        floor = top.size() < capacity ? 0 : top.values().stream().mapToLong(entry -> entry.estimate).min().orElse(0);
+    }
+    
+    private static final class Entry {
+        
+        private long estimate;
+        private long exact = 1;
+        
+        Entry(long estimate) {
+            this.estimate = estimate;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ist.auth.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * HMAC-SHA-256 under a fixed key with one initialized {@link Mac} per thread, so computing
+ * a MAC on a hot path costs neither a provider lookup nor a key schedule.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public final class HmacSha256 {
+    
+    private static final String ALGORITHM = "HmacSHA256";
+    
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    
+    public HmacSha256(byte[] key) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+    
+    public byte[] mac(String value) {
+        return macs.get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ist.auth.security;
 
 import com.ist.auth.service.JwtService;
+import com.ist.auth.service.RoleRegistry;
 import com.ist.auth.service.UserService;
 import com.ist.auth.entity.User;
 import jakarta.servlet.FilterChain;
@@ -10,8 +11,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -38,6 +38,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private RoleRegistry roleRegistry;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
@@ -45,23 +51,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && jwtService.validateToken(jwt)) {
+            if (StringUtils.hasText(jwt) && isVerified(request, jwt)) {
                 String userId = jwtService.getUserIdFromToken(jwt);
                 
                 if (userId != null) {
-                    Optional<User> userOpt = userService.findById(Long.parseLong(userId));
+                    Optional<User> userOpt = principalCache.get(Long.parseLong(userId), userService::findById);
                     
                     if (userOpt.isPresent()) {
                         User user = userOpt.get();
                         
                         // Check if user account is still active
-                        if (user.getAccountEnabled() && !user.getAccountLocked() && user.getEmailVerified()) {
-                            List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-                                    .toList();
+                        if (user.getAccountEnabled() && !user.isLockActive() && user.getEmailVerified()) {
+                            List<GrantedAuthority> authorities = roleRegistry.authoritiesFor(user.getRoles());
                             
-                            UsernamePasswordAuthenticationToken authentication = 
-                                    new UsernamePasswordAuthenticationToken(user, null, authorities);
+                            RoleMaskAuthenticationToken authentication = 
+                                    new RoleMaskAuthenticationToken(user, authorities, roleRegistry.maskOf(user.getRoles()));
                             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                             
                             SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -84,6 +88,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * Reuses the adaptive limiter's verdict when it already verified the token
+     */
+    private boolean isVerified(HttpServletRequest request, String jwt) {
+        Object verified = request.getAttribute(AdaptiveConcurrencyFilter.TOKEN_VERIFIED_ATTRIBUTE);
+        return verified instanceof Boolean result ? result : jwtService.validateToken(jwt);
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         
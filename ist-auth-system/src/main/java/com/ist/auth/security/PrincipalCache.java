@@ -0,0 +1,122 @@
+package com.ist.auth.security;
+
+import com.ist.auth.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Principal Cache holding the users resolved from access tokens, so authenticated requests
+ * do not load the user row and its roles every time. Entries expire after a short TTL and
+ * are evicted once a transaction changing the account commits. Evictions are local, so the
+ * TTL bounds how long another instance keeps serving a locked or disabled account; keep it
+ * to a few seconds. Cached users are shared between requests and must be treated as read-only.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+public class PrincipalCache {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.principal-cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.principal-cache.ttl:5s}")
+    private Duration ttl;
+    
+    @Value("${app.principal-cache.max-size:10000}")
+    private int maxSize;
+    
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    
+    // Bumped on every eviction so a load racing with a commit does not cache the old row
+    private final AtomicLong evictions = new AtomicLong();
+    
+    private Counter hitCounter;
+    private Counter missCounter;
+    
+    @PostConstruct
+    public void init() {
+        Gauge.builder("auth.principal.cache.size", entries, ConcurrentHashMap::size)
+                .description("Users held in the principal cache")
+                .register(meterRegistry);
+        hitCounter = Counter.builder("auth.principal.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        missCounter = Counter.builder("auth.principal.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+    
+    public Optional<User> get(Long userId, Function<Long, Optional<User>> loader) {
+        if (!enabled) {
+            return loader.apply(userId);
+        }
+        
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt() - now > 0) {
+            hitCounter.increment();
+            return Optional.of(entry.user());
+        }
+        
+        missCounter.increment();
+        long generation = evictions.get();
+        Optional<User> user = loader.apply(userId);
+        if (user.isPresent() && evictions.get() == generation && hasRoom(now)) {
+            entries.put(userId, new Entry(user.get(), now + ttl.toNanos()));
+        }
+        return user;
+    }
+    
+    /**
+     * Evicts the user once the current transaction commits, or immediately without one
+     */
+    public void evictAfterCommit(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+    
+    public void evict(Long userId) {
+        evictions.incrementAndGet();
+        entries.remove(userId);
+    }
+    
+    public void evictAll() {
+        evictions.incrementAndGet();
+        entries.clear();
+    }
+    
+    private boolean hasRoom(long now) {
+        if (entries.size() < maxSize) {
+            return true;
+        }
+        entries.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+        return entries.size() < maxSize;
+    }
+    
+    private record Entry(User user, long expiresAt) {
+    }
+}
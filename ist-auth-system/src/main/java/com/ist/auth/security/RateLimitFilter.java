@@ -0,0 +1,201 @@
+package com.ist.auth.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ist.auth.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rate Limit Filter applying the per route policies from app.rate-limit before any other
+ * protective filter, so rejected traffic costs one map lookup. Keys are the client IP,
+ * the user named in the request body and the OAuth client (X-Client-Id or client_id).
+ * The client IP is the remote address as resolved by the container, which reads
+ * X-Forwarded-For only from the trusted proxies in server.tomcat.remoteip.internal-proxies.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    
+    private static final int MAX_BUFFERED_BODY = 8192;
+    private static final Set<String> DIMENSIONS = Set.of("ip", "user", "client");
+    
+    @Autowired
+    private RateLimitProperties properties;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final List<Route> routes = new ArrayList<>();
+    
+    @PostConstruct
+    public void init() {
+        for (Map.Entry<String, RateLimitProperties.Policy> entry : properties.getPolicies().entrySet()) {
+            String name = entry.getKey();
+            RateLimitProperties.Policy policy = entry.getValue();
+            
+            for (String dimension : policy.getLimits().keySet()) {
+                if (!DIMENSIONS.contains(dimension)) {
+                    throw new IllegalStateException("Unknown rate limit dimension '" + dimension + "' in policy " + name);
+                }
+            }
+            
+            Counter rejected = Counter.builder("auth.ratelimit.rejected")
+                    .tag("policy", name)
+                    .description("Requests rejected with 429 by the rate limiter")
+                    .register(meterRegistry);
+            for (String path : policy.getPaths()) {
+                routes.add(new Route(PathPatternParser.defaultInstance.parse(path), name, policy, rejected));
+            }
+            
+            logger.info("Rate limit policy '{}' configured: limits={}, paths={}",
+                    name, policy.getLimits().keySet(), policy.getPaths());
+        }
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || routes.isEmpty();
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        
+        Route route = match(RejectedRequestWriter.pathWithinApplication(request));
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        RateLimitProperties.Policy policy = route.policy();
+        HttpServletRequest effectiveRequest = request;
+        String user = null;
+        if (policy.getLimits().containsKey("user") && policy.getUserField() != null && isJson(request)) {
+            BufferedBodyRequest buffered = new BufferedBodyRequest(request, MAX_BUFFERED_BODY);
+            effectiveRequest = buffered;
+            user = readUser(buffered.getBufferedBody(), policy.getUserField());
+        }
+        
+        List<RateLimiter.Quota> quotas = new ArrayList<>(policy.getLimits().size());
+        for (Map.Entry<String, RateLimitProperties.Limit> limit : policy.getLimits().entrySet()) {
+            String id = switch (limit.getKey()) {
+                case "ip" -> request.getRemoteAddr();
+                case "client" -> clientId(request);
+                default -> user;
+            };
+            if (id != null) {
+                RateLimitProperties.Limit settings = limit.getValue();
+                quotas.add(new RateLimiter.Quota(route.name() + ":" + limit.getKey(), id,
+                        settings.getRequests(), settings.getPeriod(), settings.getBurst()));
+            }
+        }
+        
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(quotas);
+        writeHeaders(response, decision);
+        
+        if (!decision.allowed()) {
+            route.rejected().increment();
+            logger.warn("Rate limit '{}' exceeded for {} on {}", route.name(), request.getRemoteAddr(), request.getRequestURI());
+            RejectedRequestWriter.write(request, response, HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests",
+                    "Rate limit exceeded, please retry later", ceilSeconds(decision.retryAfter()));
+            return;
+        }
+        
+        filterChain.doFilter(effectiveRequest, response);
+    }
+    
+    private void writeHeaders(HttpServletResponse response, RateLimiter.Decision decision) {
+        if (decision.limit() == Long.MAX_VALUE) {
+            return;
+        }
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(ceilSeconds(decision.reset())));
+    }
+    
+    private String readUser(byte[] body, String field) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode value = objectMapper.readTree(body).path(field);
+            return value.isTextual() && StringUtils.hasText(value.textValue())
+                    ? value.textValue().trim().toLowerCase(Locale.ROOT)
+                    : null;
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the controller; limit them by IP only
+            return null;
+        }
+    }
+    
+    private static String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader("X-Client-Id");
+        if (!StringUtils.hasText(clientId)) {
+            clientId = request.getParameter("client_id");
+        }
+        return StringUtils.hasText(clientId) ? clientId : null;
+    }
+    
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+    
+    private static long ceilSeconds(Duration duration) {
+        return (duration.toMillis() + 999) / 1000;
+    }
+    
+    private Route match(String path) {
+        PathContainer pathContainer = PathContainer.parsePath(path);
+        for (Route route : routes) {
+            if (route.pattern().matches(pathContainer)) {
+                return route;
+            }
+        }
+        return null;
+    }
+    
+    private record Route(PathPattern pattern, String name, RateLimitProperties.Policy policy, Counter rejected) {}
+}
@@ -0,0 +1,49 @@
+package com.ist.auth.security;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limiter checking a request against several quotas at once (per IP, user, client).
+ * The request is admitted only when every quota has capacity, and only then is capacity consumed.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public interface RateLimiter {
+    
+    Decision tryAcquire(List<Quota> quotas);
+    
+    /**
+     * Gives back what an allowed {@link #tryAcquire} drew, for a request a later check refused
+     */
+    default void refund(List<Quota> quotas) {
+    }
+    
+    /**
+     * One bucket to draw from. Scope groups keys of the same policy and dimension, e.g. login:ip.
+     */
+    record Quota(String scope, String id, long limit, Duration period, int burst) {
+        
+        public String key() {
+            return scope + ":" + id;
+        }
+        
+        public long emissionIntervalNanos() {
+            return Math.max(1, period.toNanos() / limit);
+        }
+        
+        public long toleranceNanos() {
+            return emissionIntervalNanos() * burst;
+        }
+    }
+    
+    /**
+     * Outcome for the most constrained quota. Reset is the time until that bucket is full again.
+     */
+    record Decision(boolean allowed, long limit, long remaining, Duration retryAfter, Duration reset) {
+        
+        public static Decision unlimited() {
+            return new Decision(true, Long.MAX_VALUE, Long.MAX_VALUE, Duration.ZERO, Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ist.auth.security;
+
+import com.ist.auth.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter sharing GCRA buckets across replicas through Redis. All quotas of a request
+ * are checked and consumed by one Lua script, so a request costs a single round trip and
+ * either draws from every bucket or from none. The local limiter runs first as a near
+ * limiter: requests it already rejects never reach Redis, requests Redis rejects get their
+ * local tokens back, and when Redis fails the local decision is used on its own until the
+ * failure cooldown has passed. Checks are not batched across requests or leased in blocks:
+ * tokens leased to one replica are invisible to the others, which reopens the gap between
+ * replicas this limiter closes, and the near limiter already keeps rejected floods off Redis.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public class RedisRateLimiter implements RateLimiter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimiter.class);
+    
+    /**
+     * KEYS are the buckets, ARGV holds emission interval and burst tolerance per key in
+     * microseconds. Uses the server clock so replicas with skewed clocks agree. Returns
+     * {allowed, index of the deciding key, remaining, retry after us, reset us}.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GCRA_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local tats = {}
+            local decider = 1
+            local minRemaining = -1
+            local reset = 0
+            for i = 1, #KEYS do
+                local interval = tonumber(ARGV[2 * i - 1])
+                local tolerance = tonumber(ARGV[2 * i])
+                local tat = tonumber(redis.call('GET', KEYS[i])) or now
+                if tat < now then
+                    tat = now
+                end
+                local newTat = tat + interval
+                local backlog = newTat - now
+                if backlog > tolerance then
+                    return {0, i, 0, backlog - tolerance, backlog - interval}
+                end
+                tats[i] = newTat
+                local remaining = math.floor((tolerance - backlog) / interval)
+                if minRemaining < 0 or remaining < minRemaining then
+                    minRemaining = remaining
+                    decider = i
+                    reset = backlog
+                end
+            end
+            for i = 1, #KEYS do
+                redis.call('SET', KEYS[i], string.format('%d', tats[i]), 'PX', math.ceil((tats[i] - now) / 1000))
+            end
+            return {1, decider, minRemaining, 0, reset}
+            """, List.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final RateLimiter localRateLimiter;
+    private final RateLimitProperties.Redis settings;
+    private final Counter fallbackCounter;
+    
+    private volatile long redisRetryAt;
+    
+    public RedisRateLimiter(StringRedisTemplate redisTemplate, RateLimiter localRateLimiter,
+                            RateLimitProperties.Redis settings, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.localRateLimiter = localRateLimiter;
+        this.settings = settings;
+        this.redisRetryAt = System.nanoTime();
+        this.fallbackCounter = Counter.builder("auth.ratelimit.redis.fallback")
+                .description("Rate limit checks answered locally because Redis was unavailable")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public Decision tryAcquire(List<Quota> quotas) {
+        Decision local = localRateLimiter.tryAcquire(quotas);
+        if (!local.allowed() || quotas.isEmpty()) {
+            return local;
+        }
+        
+        if (System.nanoTime() - redisRetryAt < 0) {
+            fallbackCounter.increment();
+            return local;
+        }
+        
+        try {
+            Decision shared = evaluate(quotas);
+            if (!shared.allowed()) {
+                // Another replica spent the shared budget; this request used none of it locally
+                localRateLimiter.refund(quotas);
+            }
+            return shared;
+        } catch (RuntimeException e) {
+            redisRetryAt = System.nanoTime() + settings.getFailureCooldown().toNanos();
+            fallbackCounter.increment();
+            logger.warn("Redis rate limiter unavailable, using local limits for {} ms: {}",
+                    settings.getFailureCooldown().toMillis(), e.getMessage());
+            return local;
+        }
+    }
+    
+    private Decision evaluate(List<Quota> quotas) {
+        List<String> keys = new ArrayList<>(quotas.size());
+        Object[] args = new Object[quotas.size() * 2];
+        for (int i = 0; i < quotas.size(); i++) {
+            Quota quota = quotas.get(i);
+            keys.add(redisKey(quota));
+            args[2 * i] = String.valueOf(TimeUnit.NANOSECONDS.toMicros(quota.emissionIntervalNanos()));
+            args[2 * i + 1] = String.valueOf(TimeUnit.NANOSECONDS.toMicros(quota.toleranceNanos()));
+        }
+        
+        List<?> result = redisTemplate.execute(GCRA_SCRIPT, keys, args);
+        if (result == null || result.size() < 5) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+        
+        Quota decider = quotas.get(((Number) result.get(1)).intValue() - 1);
+        return new Decision(((Number) result.get(0)).longValue() == 1, decider.limit(),
+                ((Number) result.get(2)).longValue(),
+                Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(((Number) result.get(3)).longValue())),
+                Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(((Number) result.get(4)).longValue())));
+    }
+    
+    /**
+     * The scope is the hash tag, so all keys a script touches for one policy share a
+     * cluster slot.
+     */
+    private String redisKey(Quota quota) {
+        String policy = quota.scope().substring(0, Math.max(0, quota.scope().indexOf(':')));
+        return settings.getKeyPrefix() + ":{" + policy + "}:" + quota.key();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ist.auth.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes the JSON error body for requests shed by the protective filters
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public final class RejectedRequestWriter {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private RejectedRequestWriter() {}
+    
+    public static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+    
+    public static void write(HttpServletRequest request, HttpServletResponse response, int status,
+                             String error, String message, long retryAfterSeconds) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, retryAfterSeconds)));
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status);
+        body.put("error", error);
+        body.put("message", message);
+        body.put("path", pathWithinApplication(request));
+        
+        MAPPER.writeValue(response.getOutputStream(), body);
+    }
+}
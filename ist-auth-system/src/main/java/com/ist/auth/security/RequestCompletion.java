@@ -0,0 +1,63 @@
+package com.ist.auth.security;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a callback once the request is really finished, including async requests
+ * whose filter chain returns before the response is produced.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public final class RequestCompletion {
+    
+    private RequestCompletion() {}
+    
+    public static void onComplete(HttpServletRequest request, Runnable callback) {
+        if (!request.isAsyncStarted()) {
+            callback.run();
+            return;
+        }
+        
+        request.getAsyncContext().addListener(new CompletionListener(callback));
+    }
+    
+    private static class CompletionListener implements AsyncListener {
+        
+        private final Runnable callback;
+        private final AtomicBoolean done = new AtomicBoolean();
+        
+        CompletionListener(Runnable callback) {
+            this.callback = callback;
+        }
+        
+        private void finish() {
+            if (done.compareAndSet(false, true)) {
+                callback.run();
+            }
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            finish();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete follows once the timeout has been handled
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.ist.auth.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Grants access when the caller holds any of the listed roles.
+ * Checked by {@link RoleMaskAuthorizationManager} with a single mask AND instead of SpEL evaluation.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequiresRoles {
+    
+    String[] value();
+}
@@ -0,0 +1,63 @@
+package com.ist.auth.security;
+
+import com.ist.auth.entity.Role;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Compact bitmask representation of the built-in roles (ADMIN, TEACHER, STUDENT)
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public final class RoleMask {
+    
+    public static final int NONE = 0;
+    public static final int ADMIN = 1;
+    public static final int TEACHER = 1 << 1;
+    public static final int STUDENT = 1 << 2;
+    
+    private static final String ROLE_PREFIX = "ROLE_";
+    
+    private RoleMask() {}
+    
+    public static int bitFor(String roleName) {
+        if (roleName == null) {
+            return NONE;
+        }
+        
+        return switch (roleName) {
+            case "ADMIN" -> ADMIN;
+            case "TEACHER" -> TEACHER;
+            case "STUDENT" -> STUDENT;
+            default -> NONE;
+        };
+    }
+    
+    public static int ofNames(String... roleNames) {
+        int mask = NONE;
+        for (String roleName : roleNames) {
+            mask |= bitFor(roleName);
+        }
+        return mask;
+    }
+    
+    public static int ofRoles(Collection<Role> roles) {
+        int mask = NONE;
+        for (Role role : roles) {
+            mask |= bitFor(role.getName());
+        }
+        return mask;
+    }
+    
+    public static int ofAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        int mask = NONE;
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                mask |= bitFor(name.substring(ROLE_PREFIX.length()));
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ist.auth.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Authenticated principal token that carries the caller's precomputed role mask
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public class RoleMaskAuthenticationToken extends UsernamePasswordAuthenticationToken {
+    
+    private final int roleMask;
+    
+    public RoleMaskAuthenticationToken(Object principal, Collection<? extends GrantedAuthority> authorities, int roleMask) {
+        super(principal, null, authorities);
+        this.roleMask = roleMask;
+    }
+    
+    public int getRoleMask() {
+        return roleMask;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ist.auth.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Authorization manager for {@link RequiresRoles} methods.
+ * The required mask is resolved once per method; each call is a single AND against the caller's mask.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public class RoleMaskAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+    
+    public static final Pointcut POINTCUT = new ComposablePointcut(
+            AnnotationMatchingPointcut.forMethodAnnotation(RequiresRoles.class))
+            .union(new AnnotationMatchingPointcut(RequiresRoles.class, true));
+    
+    private final Map<Method, Integer> requiredMasks = new ConcurrentHashMap<>();
+    
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        return decide(authentication, invocation);
+    }
+    
+    /**
+     * Still abstract in {@link AuthorizationManager}; callers go through {@link #authorize}
+     */
+    @Override
+    @Deprecated
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        return decide(authentication, invocation);
+    }
+    
+    private AuthorizationDecision decide(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        int required = requiredMasks.computeIfAbsent(invocation.getMethod(), method -> resolveRequiredMask(method, invocation));
+        return new AuthorizationDecision((grantedMask(authentication.get()) & required) != 0);
+    }
+    
+    private int resolveRequiredMask(Method method, MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : method.getDeclaringClass();
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        
+        RequiresRoles annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RequiresRoles.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, RequiresRoles.class);
+        }
+        
+        // An annotation naming only unknown roles yields an empty mask, which denies everyone
+        return annotation != null ? RoleMask.ofNames(annotation.value()) : RoleMask.NONE;
+    }
+    
+    private int grantedMask(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return RoleMask.NONE;
+        }
+        
+        if (authentication instanceof RoleMaskAuthenticationToken token) {
+            return token.getRoleMask();
+        }
+        
+        return RoleMask.ofAuthorities(authentication.getAuthorities());
+    }
+}
@@ -0,0 +1,20 @@
+package com.ist.auth.security;
+
+/**
+ * Thrown when a login comes from a source on the temporary credential-stuffing block list
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+public class SourceBlockedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public SourceBlockedException(long retryAfterSeconds) {
+        super("Too many failed logins from this source");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
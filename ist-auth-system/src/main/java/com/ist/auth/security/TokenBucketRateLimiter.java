@@ -0,0 +1,207 @@
+package com.ist.auth.security;
+
+import com.ist.auth.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token bucket limiter in GCRA form: each key holds a single theoretical arrival
+ * time (TAT) updated with compare-and-set, so there are no locks and no window boundaries.
+ * A key whose TAT is in the past has a full bucket and carries no state worth keeping,
+ * which is what the idle sweep evicts. When the map is full of active keys, the least
+ * recently used eighth is evicted in one pass, so a flood of fresh keys can only reset the
+ * buckets of keys quieter than itself rather than throttle every newcomer.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+public class TokenBucketRateLimiter implements RateLimiter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TokenBucketRateLimiter.class);
+    
+    @Autowired
+    private RateLimitProperties properties;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private static final int LRU_EVICTION_SHARE = 8;
+    
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    
+    private Counter evictedCounter;
+    private Counter lruEvictedCounter;
+    
+    @PostConstruct
+    public void init() {
+        Gauge.builder("auth.ratelimit.keys", buckets, ConcurrentHashMap::size)
+                .description("Rate limit keys currently tracked in memory")
+                .register(meterRegistry);
+        evictedCounter = Counter.builder("auth.ratelimit.evicted")
+                .description("Idle rate limit keys evicted")
+                .register(meterRegistry);
+        lruEvictedCounter = Counter.builder("auth.ratelimit.evicted.active")
+                .description("Active rate limit keys evicted as least recently used because the key map was full")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public Decision tryAcquire(List<Quota> quotas) {
+        long now = System.nanoTime();
+        if (now - lastSweep.get() > properties.getIdleSweepInterval().toNanos()) {
+            sweepIdle(now);
+        }
+        
+        AtomicLong[] acquired = new AtomicLong[quotas.size()];
+        Decision tightest = Decision.unlimited();
+        for (int i = 0; i < quotas.size(); i++) {
+            Quota quota = quotas.get(i);
+            AtomicLong bucket = bucket(quota, now);
+            Decision decision = acquire(bucket, quota, now);
+            
+            if (!decision.allowed()) {
+                // Give back what the earlier quotas already consumed for this request
+                for (int j = 0; j < i; j++) {
+                    acquired[j].addAndGet(-quotas.get(j).emissionIntervalNanos());
+                }
+                return decision;
+            }
+            
+            acquired[i] = bucket;
+            if (decision.remaining() < tightest.remaining()) {
+                tightest = decision;
+            }
+        }
+        return tightest;
+    }
+    
+    @Override
+    public void refund(List<Quota> quotas) {
+        for (Quota quota : quotas) {
+            Bucket bucket = buckets.get(quota.key());
+            if (bucket != null) {
+                bucket.addAndGet(-quota.emissionIntervalNanos());
+            }
+        }
+    }
+    
+    /**
+     * Draws one token from the bucket. The TAT moves forward by one emission interval per
+     * request; the request fits while the TAT stays within the burst tolerance of now.
+     */
+    static Decision acquire(AtomicLong bucket, Quota quota, long now) {
+        long interval = quota.emissionIntervalNanos();
+        long tolerance = quota.toleranceNanos();
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, now) + interval;
+            long backlog = newTat - now;
+            
+            if (backlog > tolerance) {
+                return new Decision(false, quota.limit(), 0,
+                        Duration.ofNanos(backlog - tolerance), Duration.ofNanos(backlog - interval));
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return new Decision(true, quota.limit(), (tolerance - backlog) / interval,
+                        Duration.ZERO, Duration.ofNanos(backlog));
+            }
+        }
+    }
+    
+    public int getTrackedKeys() {
+        return buckets.size();
+    }
+    
+    private Bucket bucket(Quota quota, long now) {
+        String key = quota.key();
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.lastUsed = now;
+            return bucket;
+        }
+        
+        if (buckets.size() >= properties.getMaxKeys()) {
+            sweepIdle(now);
+            if (buckets.size() >= properties.getMaxKeys()) {
+                evictLeastRecentlyUsed();
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(now));
+    }
+    
+    /**
+     * Drops the least recently used share of the keys. One pass frees room for many new keys,
+     * so the scan is paid once per maxKeys / LRU_EVICTION_SHARE insertions. Threads arriving
+     * while another evicts insert anyway; the overshoot is bounded by the number of threads.
+     */
+    private void evictLeastRecentlyUsed() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            long[] lastUsed = buckets.values().stream().mapToLong(bucket -> bucket.lastUsed).toArray();
+            if (lastUsed.length == 0) {
+                return;
+            }
+            Arrays.sort(lastUsed);
+            long cutoff = lastUsed[Math.max(0, lastUsed.length / LRU_EVICTION_SHARE - 1)];
+            
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.lastUsed - cutoff <= 0);
+            int evicted = before - buckets.size();
+            lruEvictedCounter.increment(evicted);
+            logger.warn("Rate limit key map full, evicted {} least recently used keys", evicted);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+    
+    private void sweepIdle(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.get() <= now);
+            lastSweep.set(now);
+            
+            int evicted = before - buckets.size();
+            if (evicted > 0) {
+                evictedCounter.increment(evicted);
+                logger.debug("Evicted {} idle rate limit keys, {} remain", evicted, buckets.size());
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+    
+    /**
+     * TAT plus the time of the last request, which orders keys for LRU eviction
+     */
+    private static final class Bucket extends AtomicLong {
+        
+        private volatile long lastUsed;
+        
+        Bucket(long now) {
+            super(now);
+            this.lastUsed = now;
+        }
+    }
+}
@@ -1,26 +1,41 @@
 package com.ist.auth.service;
 
+import com.ist.auth.dto.AuthResponse;
+import com.ist.auth.dto.RegistrationResponse;
+import com.ist.auth.dto.UserResponse;
 import com.ist.auth.entity.RefreshToken;
 import com.ist.auth.entity.User;
+import com.ist.auth.security.SourceBlockedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
- * Authentication Service for handling login, registration, and token operations
+ * Authentication Service for handling login, registration, and token operations.
+ * Not transactional itself: the services it calls keep their transactions short, and
+ * BCrypt, JWT signing and SMTP delivery run while no pooled connection is held.
  * Developer: Manzi Niyongira Osee
  * Year: 2025
  */
 @Service
-@Transactional
 public class AuthenticationService {
     
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
@@ -37,11 +52,115 @@ public class AuthenticationService {
     @Autowired
     private EmailVerificationService emailVerificationService;
     
-
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private LoginAttemptService loginAttemptService;
+    
+    @Autowired
+    private CredentialStuffingDetector credentialStuffingDetector;
+    
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+    
+    @Autowired
+    private AuthStageMetrics stageMetrics;
+    
+    @Value("${app.auth.parallel-minting:true}")
+    private boolean parallelMinting;
+    
+    @Value("${app.auth.minting-threads:0}")
+    private int mintingThreads;
+    
+    @Value("${app.auth.completion.threads:8}")
+    private int completionThreads;
+    
+    @Value("${app.auth.completion.queue-capacity:64}")
+    private int completionQueueCapacity;
+    
+    private ThreadPoolExecutor mintingExecutor;
+    private ThreadPoolExecutor completionExecutor;
+    
+    @PostConstruct
+    public void init() {
+        // RSA signing is CPU-bound: more signers than cores only queue on the CPU. When they are all
+        // busy the calling thread signs inline instead of waiting in a queue.
+        int signers = mintingThreads > 0 ? mintingThreads : Runtime.getRuntime().availableProcessors();
+        mintingExecutor = new ThreadPoolExecutor(signers, signers, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), Thread.ofPlatform().name("token-mint-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Bounded like the hashing pool: a full queue fails the login with RejectedExecutionException (503)
+        // instead of queueing verified logins without limit behind a slow database
+        completionExecutor = new ThreadPoolExecutor(completionThreads, completionThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(completionQueueCapacity), Thread.ofPlatform().name("auth-complete-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
     
-    public Map<String, Object> authenticate(String emailOrUsername, String password) {
+    @PreDestroy
+    public void shutdown() {
+        mintingExecutor.shutdownNow();
+        completionExecutor.shutdown();
+    }
+    
+    /**
+     * Authenticates on the password hashing pool so web threads are not held during BCrypt.
+     * Never throws; every failure is reported through the returned future. Sources on the
+     * credential stuffing block list are refused before any lookup or hashing.
+     */
+    public CompletableFuture<AuthResponse> authenticate(String emailOrUsername, String password,
+                                                        String ipAddress, String userAgent) {
         logger.info("Authenticating user: {}", emailOrUsername);
         
+        long blockedFor = credentialStuffingDetector.blockedForSeconds(ipAddress, userAgent);
+        if (blockedFor > 0) {
+            logger.warn("Login refused, source is blocked: {}", ipAddress);
+            return CompletableFuture.failedFuture(new SourceBlockedException(blockedFor));
+        }
+        
+        return verifyCredentials(emailOrUsername, password)
+                .whenComplete((response, error) -> {
+                    if (error != null && isCredentialFailure(unwrap(error))) {
+                        credentialStuffingDetector.recordFailure(ipAddress, userAgent, emailOrUsername);
+                    }
+                });
+    }
+    
+    private CompletableFuture<AuthResponse> verifyCredentials(String emailOrUsername, String password) {
+        User user;
+        try {
+            user = stageMetrics.time(AuthStageMetrics.LOGIN, "lookup", () -> loadLoginCandidate(emailOrUsername));
+        } catch (UsernameNotFoundException e) {
+            // Spend the same hashing work as a wrong password so the response time does not reveal unknown accounts
+            long hashStart = System.nanoTime();
+            return passwordHashingService.matchesUnknownUser(password)
+                    .whenComplete((ignored, error) -> stageMetrics.record(AuthStageMetrics.LOGIN, "password", false, hashStart))
+                    .thenCompose(ignored -> CompletableFuture.failedFuture(e));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        // Includes the wait for a hashing thread, which is where saturation shows up
+        long hashStart = System.nanoTime();
+        return passwordHashingService.matches(password, user.getPasswordHash())
+                .whenComplete((matches, error) -> stageMetrics.record(AuthStageMetrics.LOGIN, "password",
+                        error == null && matches, hashStart))
+                .thenApplyAsync(matches -> completeAuthentication(user, password, matches), completionExecutor);
+    }
+    
+    /**
+     * Wrong passwords and unknown accounts are what stuffing produces; locked, disabled and
+     * unverified accounts are rejected for reasons the source did not cause
+     */
+    private static boolean isCredentialFailure(Throwable error) {
+        return error instanceof WrongPasswordException || error instanceof UsernameNotFoundException;
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    private User loadLoginCandidate(String emailOrUsername) {
         Optional<User> userOpt = userService.findByEmailOrUsername(emailOrUsername);
         if (userOpt.isEmpty()) {
             logger.warn("User not found: {}", emailOrUsername);
@@ -51,7 +170,7 @@ public class AuthenticationService {
         User user = userOpt.get();
         
         // Check if account is locked
-        if (user.getAccountLocked()) {
+        if (loginAttemptService.isLocked(user)) {
             logger.warn("Account is locked: {}", user.getEmail());
             throw new BadCredentialsException("Account is locked due to too many failed login attempts");
         }
@@ -62,11 +181,15 @@ public class AuthenticationService {
             throw new BadCredentialsException("Account is disabled");
         }
         
+        return user;
+    }
+    
+    private AuthResponse completeAuthentication(User user, String password, boolean passwordMatches) {
         // Verify password
-        if (!userService.verifyPassword(user, password)) {
+        if (!passwordMatches) {
             logger.warn("Invalid password for user: {}", user.getEmail());
-            userService.incrementFailedLoginAttempts(user);
-            throw new BadCredentialsException("Invalid credentials");
+            loginAttemptService.recordFailure(user);
+            throw new WrongPasswordException();
         }
         
         // Check email verification
@@ -75,81 +198,162 @@ public class AuthenticationService {
             throw new BadCredentialsException("Email not verified. Please check your email for verification link.");
         }
         
-        // Reset failed login attempts and update last login
-        userService.resetFailedLoginAttempts(user);
-        userService.updateLastLogin(user);
+        if (passwordHashingService.needsRehash(user.getPasswordHash())) {
+            rehashPassword(user, password);
+        }
+        
+        // Reset failed login attempts (written only if the row has any) and buffer the last login
+        stageMetrics.run(AuthStageMetrics.LOGIN, "account_update", () -> {
+            loginAttemptService.recordSuccess(user);
+            lastLoginRecorder.record(user);
+        });
         
         // Generate tokens
-        String accessToken = jwtService.generateAccessToken(user);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("accessToken", accessToken);
-        response.put("refreshToken", refreshToken.getToken());
-        response.put("tokenType", "Bearer");
-        response.put("expiresIn", jwtService.getAccessTokenExpiration() / 1000);
-        response.put("user", buildUserResponse(user));
+        AuthResponse response = issueTokens(AuthStageMetrics.LOGIN, user,
+                () -> refreshTokenService.createRefreshToken(user), UserResponse.from(user));
         
         logger.info("User authenticated successfully: {}", user.getEmail());
         return response;
     }
     
-    public Map<String, Object> register(String username, String email, String firstName, String lastName, String password, String role) {
+    /**
+     * Re-encodes the password with the current target parameters in the background;
+     * a failure only means the user is migrated on a later login.
+     */
+    private void rehashPassword(User user, String password) {
+        passwordHashingService.encode(password)
+                .thenAcceptAsync(hash -> userService.updatePasswordHash(user, hash), completionExecutor)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        logger.warn("Password rehash failed for user: {}", user.getEmail(), error);
+                    } else {
+                        logger.debug("Password rehashed with current parameters for user: {}", user.getEmail());
+                    }
+                });
+    }
+    
+    /**
+     * Signs the access token on the minting pool while the refresh token is signed and stored on
+     * the calling thread. A failing stage cancels the other one: the access token signing is
+     * interrupted, or a refresh token that was already stored is revoked.
+     */
+    private AuthResponse issueTokens(String flow, User user, Supplier<RefreshToken> refreshTokenStage,
+                                     UserResponse userResponse) {
+        return stageMetrics.time(flow, "token_issue", () -> {
+            String accessToken;
+            RefreshToken refreshToken;
+            
+            if (parallelMinting) {
+                Future<String> accessTokenStage = mintingExecutor.submit(() -> jwtService.generateAccessToken(user));
+                try {
+                    refreshToken = refreshTokenStage.get();
+                } catch (RuntimeException e) {
+                    accessTokenStage.cancel(true);
+                    throw e;
+                }
+                
+                try {
+                    accessToken = await(accessTokenStage);
+                } catch (RuntimeException e) {
+                    refreshTokenService.revokeToken(refreshToken);
+                    throw e;
+                }
+            } else {
+                accessToken = jwtService.generateAccessToken(user);
+                refreshToken = refreshTokenStage.get();
+            }
+            
+            return AuthResponse.bearer(accessToken, refreshToken.getToken(),
+                    jwtService.getAccessTokenExpiration() / 1000, userResponse);
+        });
+    }
+    
+    private static String await(Future<String> stage) {
+        try {
+            return stage.get();
+        } catch (InterruptedException e) {
+            stage.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while issuing tokens", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new RuntimeException("Access token signing failed", e.getCause());
+        }
+    }
+    
+    public RegistrationResponse register(String username, String email, String firstName, String lastName, String password, String role) {
         logger.info("Registering new user: {}", email);
         
         try {
             User user = userService.createUser(username, email, firstName, lastName, password, role);
             
             // Send verification email
-            emailVerificationService.sendVerificationEmail(user);
+            stageMetrics.run(AuthStageMetrics.REGISTER, "verification_email",
+                    () -> emailVerificationService.sendVerificationEmail(user));
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "User registered successfully. Please check your email for verification link.");
-            response.put("user", buildUserResponse(user));
-            response.put("emailSent", true);
+            RegistrationResponse response = new RegistrationResponse(
+                    "User registered successfully. Please check your email for verification link.",
+                    UserResponse.from(user), true);
             
             logger.info("User registered successfully: {}", email);
             return response;
             
+        } catch (RejectedExecutionException e) {
+            // Password hashing pool saturated; kept distinct so the caller can answer 503
+            throw e;
         } catch (Exception e) {
             logger.error("Registration failed for user: {}", email, e);
             throw new RuntimeException("Registration failed: " + e.getMessage());
         }
     }
     
-    public Map<String, Object> refreshToken(String refreshTokenValue) {
+    public AuthResponse refreshToken(String refreshTokenValue) {
         logger.debug("Refreshing access token");
         
+        RefreshToken refreshToken = stageMetrics.time(AuthStageMetrics.REFRESH, "token_lookup",
+                () -> loadActiveRefreshToken(refreshTokenValue));
+        User user = refreshToken.getUser();
+        
+        // Generate new access token and rotate the refresh token (for enhanced security)
+        AuthResponse response = issueTokens(AuthStageMetrics.REFRESH, user,
+                () -> refreshTokenService.rotateToken(refreshToken), null);
+        
+        logger.debug("Access token refreshed successfully for user: {}", user.getEmail());
+        return response;
+    }
+    
+    /**
+     * Reads the presented token with its user in one query. Spending it is left to the
+     * conditional UPDATE in rotation; a token that was already spent revokes its family here,
+     * unless it was rotated within the reuse grace and rotation may hand out another successor.
+     */
+    private RefreshToken loadActiveRefreshToken(String refreshTokenValue) {
         Optional<RefreshToken> tokenOpt = refreshTokenService.findByToken(refreshTokenValue);
         if (tokenOpt.isEmpty()) {
             logger.warn("Refresh token not found");
             throw new BadCredentialsException("Refresh token not found");
         }
         
-        RefreshToken refreshToken = refreshTokenService.verifyExpiration(tokenOpt.get());
+        RefreshToken refreshToken = tokenOpt.get();
+        if (refreshToken.getRevoked() && !refreshTokenService.isWithinReuseGrace(refreshToken)) {
+            refreshTokenService.revokeFamily(refreshToken);
+            throw new BadCredentialsException("Refresh token was already used. Please make a new signin request");
+        }
+        if (refreshToken.isExpired()) {
+            throw new BadCredentialsException("Refresh token was expired. Please make a new signin request");
+        }
+        
         User user = refreshToken.getUser();
         
         // Check if user account is still active
-        if (!user.getAccountEnabled() || user.getAccountLocked()) {
+        if (!user.getAccountEnabled() || user.isLockActive()) {
             logger.warn("User account is disabled or locked: {}", user.getEmail());
             refreshTokenService.revokeAllUserTokens(user);
             throw new BadCredentialsException("Account is disabled or locked");
         }
         
-        // Generate new access token
-        String accessToken = jwtService.generateAccessToken(user);
-        
-        // Optionally rotate refresh token (for enhanced security)
-        RefreshToken newRefreshToken = refreshTokenService.rotateToken(refreshToken);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("accessToken", accessToken);
-        response.put("refreshToken", newRefreshToken.getToken());
-        response.put("tokenType", "Bearer");
-        response.put("expiresIn", jwtService.getAccessTokenExpiration() / 1000);
-        
-        logger.debug("Access token refreshed successfully for user: {}", user.getEmail());
-        return response;
+        return refreshToken;
     }
     
     public void logout(String refreshTokenValue) {
@@ -183,22 +387,15 @@ public class AuthenticationService {
         emailVerificationService.resendVerificationEmail(email);
     }
     
-    public Map<String, Object> authenticateOAuth(String email, String firstName, String lastName, String providerId, String provider) {
+    public AuthResponse authenticateOAuth(String email, String firstName, String lastName, String providerId, String provider) {
         logger.info("Authenticating OAuth user: {} from provider: {}", email, provider);
         
         User user = userService.createOAuthUser(email, firstName, lastName, providerId, provider);
-        userService.updateLastLogin(user);
+        lastLoginRecorder.record(user);
         
         // Generate tokens
-        String accessToken = jwtService.generateAccessToken(user);
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("accessToken", accessToken);
-        response.put("refreshToken", refreshToken.getToken());
-        response.put("tokenType", "Bearer");
-        response.put("expiresIn", jwtService.getAccessTokenExpiration() / 1000);
-        response.put("user", buildUserResponse(user));
+        AuthResponse response = issueTokens(AuthStageMetrics.OAUTH, user,
+                () -> refreshTokenService.createRefreshToken(user), UserResponse.from(user));
         
         logger.info("OAuth user authenticated successfully: {}", user.getEmail());
         return response;
@@ -233,21 +430,10 @@ public class AuthenticationService {
         return userOpt.get();
     }
     
-    private Map<String, Object> buildUserResponse(User user) {
-        Map<String, Object> userResponse = new HashMap<>();
-        userResponse.put("id", user.getId());
-        userResponse.put("username", user.getUsername());
-        userResponse.put("email", user.getEmail());
-        userResponse.put("firstName", user.getFirstName());
-        userResponse.put("lastName", user.getLastName());
-        userResponse.put("emailVerified", user.getEmailVerified());
-        userResponse.put("authProvider", user.getAuthProvider() != null ? user.getAuthProvider().toString() : "UNKNOWN");
-        userResponse.put("roles", user.getRoles().stream()
-                .map(role -> role.getName())
-                .toList());
-        userResponse.put("createdAt", user.getCreatedAt());
-        userResponse.put("lastLogin", user.getLastLogin());
-        
-        return userResponse;
+    private static final class WrongPasswordException extends BadCredentialsException {
+        
+        WrongPasswordException() {
+            super("Invalid credentials");
+        }
     }
 }
@@ -0,0 +1,214 @@
+package com.ist.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breached Password Service checking passwords against a local corpus of SHA-1 hashes,
+ * e.g. the Pwned Passwords list ordered by hash with the hex digests converted to raw bytes.
+ * The file is a sorted array of 20-byte records memory-mapped in segments of up to 2 GB,
+ * so hundreds of millions of entries are searched in place with no heap copy. SHA-1 is
+ * uniformly distributed, so interpolation search finds a record in a handful of probes.
+ * With no file configured every password is accepted.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Service
+public class BreachedPasswordService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BreachedPasswordService.class);
+    
+    private static final int RECORD_SIZE = 20;
+    private static final int RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_SIZE;
+    private static final int LINEAR_SCAN_THRESHOLD = 8;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.breached-passwords.file:}")
+    private String corpusFile;
+    
+    private final ThreadLocal<MessageDigest> sha1 = ThreadLocal.withInitial(BreachedPasswordService::newSha1);
+    
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long recordCount;
+    private Timer lookupTimer;
+    
+    @PostConstruct
+    public void init() {
+        lookupTimer = Timer.builder("auth.password.breach.lookup")
+                .description("Time to check a password against the breached password corpus")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("auth.password.breach.entries", this, service -> service.recordCount)
+                .description("Hashes in the breached password corpus")
+                .register(meterRegistry);
+        
+        if (!StringUtils.hasText(corpusFile)) {
+            logger.info("No breached password corpus configured (app.breached-passwords.file), check disabled");
+            return;
+        }
+        
+        try {
+            load(Path.of(corpusFile));
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Could not load breached password corpus {}, check disabled", corpusFile, e);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return recordCount > 0;
+    }
+    
+    public boolean isBreached(String password) {
+        if (recordCount == 0 || password == null) {
+            return false;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            MessageDigest digest = sha1.get();
+            return contains(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private void load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % RECORD_SIZE != 0) {
+                throw new IllegalStateException("Corpus size " + size + " is not a multiple of " + RECORD_SIZE + " bytes");
+            }
+            
+            long records = size / RECORD_SIZE;
+            int segmentCount = (int) ((records + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = (long) i * RECORDS_PER_SEGMENT;
+                long length = Math.min(RECORDS_PER_SEGMENT, records - first) * RECORD_SIZE;
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * RECORD_SIZE, length);
+            }
+            
+            segments = mapped;
+            recordCount = records;
+            logger.info("Breached password corpus loaded: {} hashes in {} mapped segments from {}",
+                    records, segmentCount, path);
+        }
+    }
+    
+    /**
+     * Interpolation search on the first 8 bytes of each digest, falling back to a short
+     * linear scan once the range is small
+     */
+    private boolean contains(byte[] digest) {
+        long keyHigh = readLong(digest, 0);
+        long keyMid = readLong(digest, 8);
+        int keyLow = readInt(digest, 16);
+        
+        long low = 0;
+        long high = recordCount - 1;
+        while (low <= high) {
+            if (high - low < LINEAR_SCAN_THRESHOLD) {
+                for (long index = low; index <= high; index++) {
+                    if (compare(index, keyHigh, keyMid, keyLow) == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            
+            long lowPrefix = prefix(low);
+            long highPrefix = prefix(high);
+            if (Long.compareUnsigned(keyHigh, lowPrefix) < 0 || Long.compareUnsigned(keyHigh, highPrefix) > 0) {
+                return false;
+            }
+            
+            long probe;
+            if (highPrefix != lowPrefix) {
+                double fraction = (unsignedToDouble(keyHigh) - unsignedToDouble(lowPrefix))
+                        / (unsignedToDouble(highPrefix) - unsignedToDouble(lowPrefix));
+                probe = low + (long) (fraction * (high - low));
+                probe = Math.max(low, Math.min(high, probe));
+            } else {
+                probe = low + (high - low) / 2;
+            }
+            
+            int cmp = compare(probe, keyHigh, keyMid, keyLow);
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp < 0) {
+                low = probe + 1;
+            } else {
+                high = probe - 1;
+            }
+        }
+        return false;
+    }
+    
+    private int compare(long index, long keyHigh, long keyMid, int keyLow) {
+        MappedByteBuffer segment = segments[(int) (index / RECORDS_PER_SEGMENT)];
+        int position = (int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        
+        int cmp = Long.compareUnsigned(segment.getLong(position), keyHigh);
+        if (cmp == 0) {
+            cmp = Long.compareUnsigned(segment.getLong(position + 8), keyMid);
+        }
+        if (cmp == 0) {
+            cmp = Integer.compareUnsigned(segment.getInt(position + 16), keyLow);
+        }
+        return cmp;
+    }
+    
+    private long prefix(long index) {
+        MappedByteBuffer segment = segments[(int) (index / RECORDS_PER_SEGMENT)];
+        return segment.getLong((int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE);
+    }
+    
+    private static double unsignedToDouble(long value) {
+        return (double) (value >>> 1) * 2.0 + (value & 1);
+    }
+    
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xffL);
+        }
+        return value;
+    }
+    
+    private static int readInt(byte[] bytes, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+    
+    private static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
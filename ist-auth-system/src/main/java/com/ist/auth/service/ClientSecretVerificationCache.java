@@ -0,0 +1,146 @@
+package com.ist.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.ist.auth.security.HmacSha256;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of successful OAuth client secret verifications.
+ * Entries are keyed by client ID plus an HMAC of the presented secret under a random
+ * per-process key, so the cache never holds secrets or reusable hashes. Changes to a client
+ * invalidate its entries once the changing transaction commits. Invalidation is local, so the
+ * TTL bounds how long another instance keeps accepting a regenerated secret or a deactivated
+ * client; keep it to a few seconds.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Component
+public class ClientSecretVerificationCache {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.oauth.client-secret-cache.ttl:5s}")
+    private Duration ttl;
+    
+    @Value("${app.oauth.client-secret-cache.max-entries:10000}")
+    private int maxEntries;
+    
+    private final Map<CacheKey, Long> entries = new ConcurrentHashMap<>();
+    private final HmacSha256 digester;
+    
+    // Bumped on every invalidation so a verification racing with a commit does not cache the old secret
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    private Counter hits;
+    private Counter misses;
+    
+    public ClientSecretVerificationCache() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digester = new HmacSha256(key);
+    }
+    
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("oauth.client.secret.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("oauth.client.secret.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("oauth.client.secret.cache.hit.ratio", this, ClientSecretVerificationCache::hitRatio)
+                .description("Share of client secret validations answered from the cache")
+                .register(meterRegistry);
+        Gauge.builder("oauth.client.secret.cache.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+    
+    public boolean isVerified(String clientId, String clientSecret) {
+        CacheKey key = new CacheKey(clientId, digest(clientSecret));
+        Long expiresAt = entries.get(key);
+        
+        if (expiresAt != null && expiresAt - System.nanoTime() > 0) {
+            hits.increment();
+            return true;
+        }
+        
+        if (expiresAt != null) {
+            entries.remove(key, expiresAt);
+        }
+        misses.increment();
+        return false;
+    }
+    
+    /**
+     * Read before loading the client; pass it to {@link #recordVerified} so a verification
+     * made against a row changed meanwhile is not cached
+     */
+    public long generation() {
+        return invalidations.get();
+    }
+    
+    public void recordVerified(String clientId, String clientSecret, long generation) {
+        if (invalidations.get() != generation) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(new CacheKey(clientId, digest(clientSecret)), System.nanoTime() + ttl.toNanos());
+    }
+    
+    /**
+     * Invalidates the client once the current transaction commits, or immediately without one
+     */
+    public void invalidateAfterCommit(String clientId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(clientId);
+                }
+            });
+        } else {
+            invalidate(clientId);
+        }
+    }
+    
+    public void invalidate(String clientId) {
+        invalidations.incrementAndGet();
+        entries.keySet().removeIf(key -> key.clientId().equals(clientId));
+    }
+    
+    private void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(expiresAt -> expiresAt - now <= 0);
+    }
+    
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+    
+    private String digest(String clientSecret) {
+        return Base64.getEncoder().encodeToString(digester.mac(clientSecret));
+    }
+    
+    private record CacheKey(String clientId, String secretDigest) {}
+}
@@ -0,0 +1,225 @@
+package com.ist.auth.service;
+
+import com.ist.auth.security.HeavyHitters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Credential Stuffing Detector counting failed logins by IP prefix (/24 or /48), user agent
+ * and target account in Count-Min sketches, so memory stays fixed however many sources an
+ * attack uses. Prefixes and user agents whose estimate crosses the threshold are blocked
+ * only once the exact count kept for heavy hitters confirms it, so a quiet source sharing
+ * sketch cells with a noisy one is never blocked. Blocks are temporary and checked before
+ * any password work. Counts halve every decay interval. Callers report wrong passwords and
+ * unknown accounts only; rejections of locked or unverified accounts are not evidence.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Service
+public class CredentialStuffingDetector {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CredentialStuffingDetector.class);
+    
+    private static final int MAX_USER_AGENT_LENGTH = 256;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.stuffing-detection.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.stuffing-detection.sketch-width:4096}")
+    private int sketchWidth;
+    
+    @Value("${app.stuffing-detection.sketch-depth:4}")
+    private int sketchDepth;
+    
+    @Value("${app.stuffing-detection.top-k:50}")
+    private int topK;
+    
+    @Value("${app.stuffing-detection.ip-prefix-block-threshold:100}")
+    private long ipPrefixBlockThreshold;
+    
+    /**
+     * 0 disables blocking by user agent; agents are still counted and reported
+     */
+    @Value("${app.stuffing-detection.user-agent-block-threshold:0}")
+    private long userAgentBlockThreshold;
+    
+    @Value("${app.stuffing-detection.block-duration:15m}")
+    private Duration blockDuration;
+    
+    @Value("${app.stuffing-detection.max-blocked:10000}")
+    private int maxBlocked;
+    
+    private final ConcurrentHashMap<String, Long> blocked = new ConcurrentHashMap<>();
+    
+    private HeavyHitters ipPrefixes;
+    private HeavyHitters userAgents;
+    private HeavyHitters accounts;
+    private Counter blockedCounter;
+    
+    @PostConstruct
+    public void init() {
+        ipPrefixes = new HeavyHitters(sketchWidth, sketchDepth, topK);
+        userAgents = new HeavyHitters(sketchWidth, sketchDepth, topK);
+        accounts = new HeavyHitters(sketchWidth, sketchDepth, topK);
+        
+        Gauge.builder("auth.stuffing.blocked.sources", blocked, ConcurrentHashMap::size)
+                .description("Sources currently on the temporary login block list")
+                .register(meterRegistry);
+        blockedCounter = Counter.builder("auth.stuffing.blocked.logins")
+                .description("Login attempts refused because the source was blocked")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Seconds the source stays blocked, or 0 when logins from it may proceed
+     */
+    public long blockedForSeconds(String ip, String userAgent) {
+        if (!enabled || blocked.isEmpty()) {
+            return 0;
+        }
+        
+        long now = System.currentTimeMillis();
+        long until = Math.max(blockedUntil("ip:" + ipPrefix(ip), now), blockedUntil("ua:" + normalizeUserAgent(userAgent), now));
+        if (until <= now) {
+            return 0;
+        }
+        
+        blockedCounter.increment();
+        return Math.max(1, (until - now + 999) / 1000);
+    }
+    
+    public void recordFailure(String ip, String userAgent, String account) {
+        if (!enabled) {
+            return;
+        }
+        
+        String prefix = ipPrefix(ip);
+        long prefixCount = ipPrefixes.record(prefix);
+        if (prefixCount >= ipPrefixBlockThreshold && ipPrefixes.exactCount(prefix) >= ipPrefixBlockThreshold) {
+            block("ip:" + prefix, prefixCount);
+        }
+        
+        String agent = normalizeUserAgent(userAgent);
+        long agentCount = userAgents.record(agent);
+        if (userAgentBlockThreshold > 0 && agentCount >= userAgentBlockThreshold
+                && userAgents.exactCount(agent) >= userAgentBlockThreshold) {
+            block("ua:" + agent, agentCount);
+        }
+        
+        if (account != null) {
+            accounts.record(account.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+    
+    public Map<String, Object> snapshot(int limit) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> blockList = new LinkedHashMap<>();
+        blocked.forEach((source, until) -> {
+            if (until > now) {
+                blockList.put(source, Instant.ofEpochMilli(until).toString());
+            }
+        });
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ipPrefixes", toList(ipPrefixes.top(limit)));
+        response.put("userAgents", toList(userAgents.top(limit)));
+        response.put("accounts", toList(accounts.top(limit)));
+        response.put("blocked", blockList);
+        return response;
+    }
+    
+    @Scheduled(fixedRate = 300000) // Run every 5 minutes
+    public void decay() {
+        ipPrefixes.decay();
+        userAgents.decay();
+        accounts.decay();
+        
+        long now = System.currentTimeMillis();
+        blocked.values().removeIf(until -> until <= now);
+    }
+    
+    private void block(String source, long failures) {
+        if (blocked.size() >= maxBlocked && !blocked.containsKey(source)) {
+            logger.warn("Login block list is full ({} sources), not blocking {}", maxBlocked, source);
+            return;
+        }
+        
+        long until = System.currentTimeMillis() + blockDuration.toMillis();
+        if (blocked.put(source, until) == null) {
+            logger.warn("Blocking logins from {} for {} after ~{} failed attempts", source, blockDuration, failures);
+        }
+    }
+    
+    private long blockedUntil(String source, long now) {
+        Long until = blocked.get(source);
+        if (until == null) {
+            return 0;
+        }
+        if (until <= now) {
+            blocked.remove(source, until);
+            return 0;
+        }
+        return until;
+    }
+    
+    private static List<Map<String, Object>> toList(List<Map.Entry<String, Long>> entries) {
+        return entries.stream()
+                .map(entry -> Map.<String, Object>of("key", entry.getKey(), "failures", entry.getValue()))
+                .toList();
+    }
+    
+    /**
+     * Groups addresses the way botnets and NAT pools spread them: /24 for IPv4, /48 for IPv6
+     */
+    static String ipPrefix(String ip) {
+        if (ip == null || ip.isBlank()) {
+            return "unknown";
+        }
+        
+        if (ip.indexOf(':') < 0) {
+            int lastDot = ip.lastIndexOf('.');
+            return lastDot > 0 ? ip.substring(0, lastDot) + ".0/24" : ip;
+        }
+        
+        try {
+            // Only literal addresses reach here, so this never does a DNS lookup
+            byte[] address = InetAddress.getByName(ip).getAddress();
+            if (address.length == 4) {
+                return (address[0] & 0xff) + "." + (address[1] & 0xff) + "." + (address[2] & 0xff) + ".0/24";
+            }
+            return String.format("%02x%02x:%02x%02x:%02x%02x::/48",
+                    address[0], address[1], address[2], address[3], address[4], address[5]);
+        } catch (UnknownHostException e) {
+            return ip;
+        }
+    }
+    
+    private static String normalizeUserAgent(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return "none";
+        }
+        String agent = userAgent.trim();
+        return agent.length() > MAX_USER_AGENT_LENGTH ? agent.substring(0, MAX_USER_AGENT_LENGTH) : agent;
+    }
+}
@@ -39,6 +39,9 @@ public class DataInitializationService implements CommandLineRunner {
     @Autowired
     private BudgetService budgetService;
     
+    @Autowired
+    private RoleRegistry roleRegistry;
+    
     @Value("${app.admin.email:admin@ist-auth.com}")
     private String adminEmail;
     
@@ -64,6 +67,9 @@ public class DataInitializationService implements CommandLineRunner {
         createRoleIfNotExists("TEACHER", "Teacher with access to educational resources");
         createRoleIfNotExists("STUDENT", "Student with limited access to learning resources");
         
+        // Other threads only see the new snapshot once the roles are committed
+        roleRegistry.refreshAfterCommit();
+        
         logger.info("Default roles created successfully");
     }
     
@@ -82,7 +88,7 @@ public class DataInitializationService implements CommandLineRunner {
     private void createAdminUser() {
         logger.info("Creating admin user...");
         
-        if (!userRepository.existsByEmail(adminEmail)) {
+        if (!userRepository.existsByEmailNorm(User.normalizeIdentity(adminEmail))) {
             Role adminRole = roleRepository.findByName("ADMIN")
                     .orElseThrow(() -> new RuntimeException("ADMIN role not found"));
             
@@ -90,7 +96,7 @@ public class DataInitializationService implements CommandLineRunner {
             admin.setPasswordHash(passwordEncoder.encode(adminPassword));
             admin.setEmailVerified(true);
             admin.setAccountEnabled(true);
-            admin.addRole(adminRole);
+            admin.getRoles().add(adminRole);
             
             userRepository.save(admin);
             logger.info("Admin user created with email: {}", adminEmail);
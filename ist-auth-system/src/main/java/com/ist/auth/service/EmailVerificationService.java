@@ -11,7 +11,9 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -34,6 +36,9 @@ public class EmailVerificationService {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
 
     
     @Value("${app.email.verification.expiration-hours:24}")
@@ -68,10 +73,15 @@ public class EmailVerificationService {
     @Autowired
     private GmailEmailService gmailEmailService;
     
+    /**
+     * Stores the token in its own transaction and talks to the mail server after it commits,
+     * so SMTP latency never holds a pooled connection
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void sendVerificationEmail(User user) {
         logger.info("Sending verification email to: {}", user.getEmail());
         
-        EmailVerificationToken token = generateVerificationToken(user);
+        EmailVerificationToken token = transactionTemplate.execute(status -> generateVerificationToken(user));
         
         try {
             boolean sent = gmailEmailService.sendVerificationEmail(
@@ -148,6 +158,7 @@ public class EmailVerificationService {
         return tokenRepository.findByToken(token);
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void resendVerificationEmail(String email) {
         logger.info("Resending verification email to: {}", email);
         
@@ -165,6 +176,7 @@ public class EmailVerificationService {
         sendVerificationEmail(user);
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void resendVerificationEmail(User user) {
         if (user.getEmailVerified()) {
             throw new RuntimeException("Email is already verified");
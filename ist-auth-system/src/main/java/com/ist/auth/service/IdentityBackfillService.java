@@ -0,0 +1,145 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Identity Backfill Service filling the email_norm and username_norm columns of rows
+ * written before they existed. Runs once the schema is in place but before the web server
+ * accepts traffic, walking the table by id in batches; rows that instances on the previous
+ * release insert later are found by the lookups' fallback to the raw columns. Every
+ * instance runs it; the updates only fill columns that are still null, and a row whose
+ * identifier a peer claims first is skipped rather than failing startup. When two legacy
+ * accounts differ only in case, the older one keeps the identifier and the newer one is
+ * logged for manual merging; it stays unreachable through that identifier until resolved.
+ * Legacy usernames containing '@' are reported: login routes such input to the email
+ * index, so those users can only sign in by email.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Service
+public class IdentityBackfillService implements SmartInitializingSingleton {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdentityBackfillService.class);
+    
+    private static final String SELECT_PENDING =
+            "SELECT id, email, username, email_norm, username_norm FROM users "
+            + "WHERE id > ? AND (email_norm IS NULL OR username_norm IS NULL) "
+            + "ORDER BY id FETCH FIRST ? ROWS ONLY";
+    
+    // The NOT EXISTS guard turns a case-only duplicate into a zero update count instead of a
+    // unique violation that would roll back the whole batch
+    private static final String UPDATE_EMAIL_NORM =
+            "UPDATE users SET email_norm = ? WHERE id = ? AND email_norm IS NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM users other WHERE other.email_norm = ?)";
+    
+    private static final String UPDATE_USERNAME_NORM =
+            "UPDATE users SET username_norm = ? WHERE id = ? AND username_norm IS NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM users other WHERE other.username_norm = ?)";
+    
+    private static final String SELECT_STILL_PENDING =
+            "SELECT id, email_norm, username_norm FROM users WHERE id BETWEEN ? AND ? "
+            + "AND (email_norm IS NULL OR username_norm IS NULL) ORDER BY id";
+    
+    private static final String SELECT_AT_SIGN_USERNAMES =
+            "SELECT id FROM users WHERE username LIKE '%@%' ORDER BY id FETCH FIRST 100 ROWS ONLY";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.identity-backfill.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.identity-backfill.batch-size:500}")
+    private int batchSize;
+    
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        
+        long afterId = 0;
+        int updated = 0;
+        int conflicts = 0;
+        while (true) {
+            List<PendingRow> rows = jdbcTemplate.query(SELECT_PENDING,
+                    (rs, rowNum) -> new PendingRow(rs.getLong("id"), rs.getString("email"), rs.getString("username"),
+                            rs.getString("email_norm") == null, rs.getString("username_norm") == null),
+                    afterId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            
+            List<Object[]> emailUpdates = new ArrayList<>(rows.size());
+            List<Object[]> usernameUpdates = new ArrayList<>(rows.size());
+            for (PendingRow row : rows) {
+                String emailNorm = User.normalizeIdentity(row.email());
+                String usernameNorm = User.normalizeIdentity(row.username());
+                emailUpdates.add(new Object[] {emailNorm, row.id(), emailNorm});
+                usernameUpdates.add(new Object[] {usernameNorm, row.id(), usernameNorm});
+            }
+            
+            update(UPDATE_EMAIL_NORM, emailUpdates);
+            update(UPDATE_USERNAME_NORM, usernameUpdates);
+            
+            // Rows still missing a value lost it to another account; rows a peer instance
+            // filled meanwhile are not pending any more and are not reported
+            long firstId = rows.get(0).id();
+            long lastId = rows.get(rows.size() - 1).id();
+            List<PendingRow> stillPending = jdbcTemplate.query(SELECT_STILL_PENDING,
+                    (rs, rowNum) -> new PendingRow(rs.getLong("id"), null, null,
+                            rs.getString("email_norm") == null, rs.getString("username_norm") == null),
+                    firstId, lastId);
+            for (PendingRow row : stillPending) {
+                logger.warn("User {} shares its {} with an older account except for case and needs merging",
+                        row.id(), row.needsEmail() ? "email" : "username");
+            }
+            conflicts += stillPending.size();
+            updated += rows.size() - stillPending.size();
+            
+            afterId = lastId;
+        }
+        
+        if (updated > 0 || conflicts > 0) {
+            logger.info("Identity backfill normalized {} users, {} left with conflicting identifiers", updated, conflicts);
+        }
+        
+        List<Long> atSignUsernames = jdbcTemplate.queryForList(SELECT_AT_SIGN_USERNAMES, Long.class);
+        if (!atSignUsernames.isEmpty()) {
+            logger.warn("Users {} have a username containing '@'; they can only sign in by email", atSignUsernames);
+        }
+    }
+    
+    /**
+     * Runs the batch, falling back to one statement per row when an instance backfilling
+     * concurrently claims an identifier between a row's guard and its write. Each statement
+     * commits on its own, so a lost row leaves the rest of the batch applied.
+     */
+    private void update(String sql, List<Object[]> rows) {
+        try {
+            jdbcTemplate.batchUpdate(sql, rows);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Identity backfill batch hit a concurrent write, retrying row by row: {}", e.getMessage());
+            for (Object[] row : rows) {
+                try {
+                    jdbcTemplate.update(sql, row);
+                } catch (DataIntegrityViolationException lost) {
+                    logger.debug("Identity backfill skipped user {}, its identifier was claimed concurrently", row[1]);
+                }
+            }
+        }
+    }
+    
+    private record PendingRow(long id, String email, String username, boolean needsEmail, boolean needsUsername) {}
+}
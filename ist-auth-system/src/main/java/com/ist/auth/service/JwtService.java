@@ -46,6 +46,9 @@ public class JwtService {
     @Autowired
     private JwtKeyPairRepository keyPairRepository;
     
+    @Autowired
+    private RoleRegistry roleRegistry;
+    
     @Value("${app.jwt.access-token-expiration:900000}")
     private long accessTokenExpiration;
     
@@ -152,6 +155,7 @@ public class JwtService {
                     .claim("roles", user.getRoles().stream()
                             .map(role -> role.getName())
                             .toList())
+                    .claim("rm", roleRegistry.maskOf(user.getRoles()))
                     .claim("emailVerified", user.getEmailVerified())
                     .claim("authProvider", user.getAuthProvider().toString())
                     .claim("tokenType", "access")
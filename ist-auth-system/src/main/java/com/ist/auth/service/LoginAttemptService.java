@@ -0,0 +1,168 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.User;
+import com.ist.auth.repository.UserRepository;
+import com.ist.auth.security.PrincipalCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Login Attempt Service tracking failed passwords in memory. Each account keeps a failure
+ * score that halves every decay half-life; a failure that takes the score past
+ * max-attempts - 1 locks the account for the lock duration. Only the lock and unlock transitions are written to the users table, so an
+ * attack on an account costs one UPDATE per lock window instead of one per attempt.
+ * Entries exist only for real accounts, so the map is bounded by the user count, and
+ * decayed entries are swept every minute.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Service
+public class LoginAttemptService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptService.class);
+    
+    private static final double FORGOTTEN_SCORE = 0.05;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Value("${app.login-attempts.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${app.login-attempts.decay-half-life:15m}")
+    private Duration decayHalfLife;
+    
+    @Value("${app.login-attempts.lock-duration:15m}")
+    private Duration lockDuration;
+    
+    private final ConcurrentHashMap<Long, Attempts> attempts = new ConcurrentHashMap<>();
+    
+    private Counter lockCounter;
+    
+    @PostConstruct
+    public void init() {
+        Gauge.builder("auth.login.attempts.tracked", attempts, ConcurrentHashMap::size)
+                .description("Accounts with recent failed logins tracked in memory")
+                .register(meterRegistry);
+        lockCounter = Counter.builder("auth.login.attempts.locks")
+                .description("Accounts locked after too many failed logins")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * True while the account is inside a lock window. A persisted lock whose window has
+     * passed is released here, so the user is not kept out until the next sweep.
+     */
+    public boolean isLocked(User user) {
+        long now = System.currentTimeMillis();
+        Attempts state = attempts.get(user.getId());
+        if (state != null && state.lockedUntil() > now) {
+            return true;
+        }
+        
+        if (!Boolean.TRUE.equals(user.getAccountLocked())) {
+            return false;
+        }
+        if (user.isLockActive()) {
+            return true;
+        }
+        
+        release(user);
+        logger.info("Lock window expired for user: {}", user.getEmail());
+        return false;
+    }
+    
+    public void recordFailure(User user) {
+        long now = System.currentTimeMillis();
+        boolean[] lockedNow = new boolean[1];
+        
+        Attempts state = attempts.compute(user.getId(), (id, current) -> {
+            if (current != null && current.lockedUntil() > now) {
+                return current;
+            }
+            double score = (current != null ? current.decayedScore(now, decayHalfLife.toMillis()) : 0) + 1;
+            // Failures in quick succession have barely decayed, so the Nth one still locks
+            if (score > maxAttempts - 1) {
+                lockedNow[0] = true;
+                return new Attempts(0, now, now + lockDuration.toMillis());
+            }
+            return new Attempts(score, now, 0);
+        });
+        
+        if (lockedNow[0]) {
+            LocalDateTime lockedUntil = LocalDateTime.ofInstant(Instant.ofEpochMilli(state.lockedUntil()), ZoneId.systemDefault());
+            userRepository.lockAccount(user.getId(), maxAttempts, lockedUntil);
+            principalCache.evictAfterCommit(user.getId());
+            user.setAccountLocked(true);
+            user.setFailedLoginAttempts(maxAttempts);
+            user.setLockedUntil(lockedUntil);
+            lockCounter.increment();
+            logger.warn("User account locked due to failed login attempts until {}: {}", lockedUntil, user.getEmail());
+        }
+    }
+    
+    /**
+     * Forgets failures after a successful login. Touches the database only when the row still
+     * carries a failure count, e.g. from before attempts were tracked in memory.
+     */
+    public void recordSuccess(User user) {
+        attempts.remove(user.getId());
+        if (user.getFailedLoginAttempts() != null && user.getFailedLoginAttempts() > 0) {
+            release(user);
+        }
+    }
+    
+    /**
+     * Drops the in-memory state after an administrator unlocks the account
+     */
+    public void clear(Long userId) {
+        attempts.remove(userId);
+    }
+    
+    @Scheduled(fixedRate = 60000) // Run every minute
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long halfLife = decayHalfLife.toMillis();
+        attempts.values().removeIf(state -> state.lockedUntil() <= now && state.decayedScore(now, halfLife) < FORGOTTEN_SCORE);
+        
+        int released = userRepository.releaseExpiredLocks(LocalDateTime.now());
+        if (released > 0) {
+            principalCache.evictAll();
+            logger.info("Released {} account locks whose lock window expired", released);
+        }
+    }
+    
+    private void release(User user) {
+        attempts.remove(user.getId());
+        userRepository.releaseLock(user.getId());
+        principalCache.evictAfterCommit(user.getId());
+        user.resetFailedLoginAttempts();
+    }
+    
+    private record Attempts(double score, long updatedAt, long lockedUntil) {
+        
+        double decayedScore(long now, long halfLifeMillis) {
+            return score * Math.pow(0.5, (double) (now - updatedAt) / halfLifeMillis);
+        }
+    }
+}
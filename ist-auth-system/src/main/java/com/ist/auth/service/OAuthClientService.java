@@ -3,14 +3,19 @@ package com.ist.auth.service;
 import com.ist.auth.entity.OAuthClient;
 import com.ist.auth.entity.GrantType;
 import com.ist.auth.repository.OAuthClientRepository;
+import com.ist.auth.security.ClientSecretHasher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -27,11 +32,29 @@ public class OAuthClientService {
     
     private static final Logger logger = LoggerFactory.getLogger(OAuthClientService.class);
     
+    private static final int CLIENT_SECRET_BYTES = 32;
+    
+    // Secrets the default clients were seeded with in earlier releases; they are public
+    private static final Map<String, String> RETIRED_DEFAULT_SECRETS = Map.of(
+            "ist_frontend_app", "frontend_secret_2025",
+            "ist_demo_app", "demo_secret_2025");
+    
+    private final SecureRandom secureRandom = new SecureRandom();
+    
     @Autowired
     private OAuthClientRepository clientRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private ClientSecretHasher clientSecretHasher;
+    
+    @Autowired
+    private ClientSecretVerificationCache secretVerificationCache;
+    
+    @Value("${app.oauth.default-clients.frontend-secret:}")
+    private String frontendClientSecret;
+    
+    @Value("${app.oauth.default-clients.demo-secret:}")
+    private String demoClientSecret;
     
     public OAuthClient registerClient(String clientName, String description, Set<String> redirectUris,
                                     Set<String> grantTypes, Set<String> scopes) {
@@ -42,7 +65,7 @@ public class OAuthClientService {
         
         OAuthClient client = new OAuthClient();
         client.setClientId(clientId);
-        client.setClientSecret(passwordEncoder.encode(clientSecret));
+        client.setClientSecret(clientSecretHasher.hash(clientSecret));
         client.setClientName(clientName);
         client.setDescription(description);
         client.setRedirectUris(redirectUris);
@@ -72,7 +95,9 @@ public class OAuthClientService {
         client.setGrantTypes(convertToGrantTypes(grantTypes));
         client.setScopes(scopes);
         
-        return clientRepository.save(client);
+        OAuthClient savedClient = clientRepository.save(client);
+        secretVerificationCache.invalidateAfterCommit(clientId);
+        return savedClient;
     }
     
     public void deactivateClient(String clientId) {
@@ -83,6 +108,7 @@ public class OAuthClientService {
         
         client.setActive(false);
         clientRepository.save(client);
+        secretVerificationCache.invalidateAfterCommit(clientId);
     }
     
     public void activateClient(String clientId) {
@@ -102,8 +128,9 @@ public class OAuthClientService {
                 .orElseThrow(() -> new RuntimeException("OAuth client not found"));
         
         String newSecret = generateClientSecret();
-        client.setClientSecret(passwordEncoder.encode(newSecret));
+        client.setClientSecret(clientSecretHasher.hash(newSecret));
         clientRepository.save(client);
+        secretVerificationCache.invalidateAfterCommit(clientId);
         
         return newSecret;
     }
@@ -125,6 +152,11 @@ public class OAuthClientService {
     }
     
     public boolean validateClient(String clientId, String clientSecret) {
+        if (secretVerificationCache.isVerified(clientId, clientSecret)) {
+            return true;
+        }
+        
+        long generation = secretVerificationCache.generation();
         Optional<OAuthClient> clientOpt = clientRepository.findActiveByClientId(clientId);
         
         if (clientOpt.isEmpty()) {
@@ -133,9 +165,16 @@ public class OAuthClientService {
         }
         
         OAuthClient client = clientOpt.get();
-        boolean valid = passwordEncoder.matches(clientSecret, client.getClientSecret());
+        boolean valid = clientSecretHasher.matches(clientSecret, client.getClientSecret());
         
-        if (!valid) {
+        if (valid) {
+            if (clientSecretHasher.needsMigration(client.getClientSecret())) {
+                logger.info("Migrating client secret hash to HMAC-SHA-256 for client: {}", clientId);
+                client.setClientSecret(clientSecretHasher.hash(clientSecret));
+                clientRepository.save(client);
+            }
+            secretVerificationCache.recordVerified(clientId, clientSecret, generation);
+        } else {
             logger.warn("Invalid client secret for client: {}", clientId);
         }
         
@@ -190,8 +229,9 @@ public class OAuthClientService {
     }
     
     private String generateClientSecret() {
-        return UUID.randomUUID().toString().replace("-", "") + 
-               UUID.randomUUID().toString().replace("-", "");
+        byte[] secret = new byte[CLIENT_SECRET_BYTES];
+        secureRandom.nextBytes(secret);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
     }
     
     private Set<GrantType> convertToGrantTypes(Set<String> grantTypeStrings) {
@@ -207,14 +247,22 @@ public class OAuthClientService {
                 .collect(Collectors.toSet());
     }
     
+    /**
+     * Seeds the default clients with the secrets from app.oauth.default-clients, or with random
+     * ones that must be regenerated through the admin API before use. Existing default clients
+     * still holding a retired well-known secret get a new one.
+     */
     public void createDefaultClients() {
         logger.info("Creating default OAuth clients");
         
+        retireWellKnownSecret("ist_frontend_app", frontendClientSecret);
+        retireWellKnownSecret("ist_demo_app", demoClientSecret);
+        
         // Frontend application client
         if (!clientRepository.existsByClientId("ist_frontend_app")) {
             OAuthClient frontendClient = new OAuthClient();
             frontendClient.setClientId("ist_frontend_app");
-            frontendClient.setClientSecret(passwordEncoder.encode("frontend_secret_2025"));
+            frontendClient.setClientSecret(clientSecretHasher.hash(defaultClientSecret("ist_frontend_app", frontendClientSecret)));
             frontendClient.setClientName("IST Frontend Application");
             frontendClient.setDescription("Default client for IST Auth System frontend");
             frontendClient.setRedirectUris(Set.of(
@@ -234,7 +282,7 @@ public class OAuthClientService {
         if (!clientRepository.existsByClientId("ist_demo_app")) {
             OAuthClient demoClient = new OAuthClient();
             demoClient.setClientId("ist_demo_app");
-            demoClient.setClientSecret(passwordEncoder.encode("demo_secret_2025"));
+            demoClient.setClientSecret(clientSecretHasher.hash(defaultClientSecret("ist_demo_app", demoClientSecret)));
             demoClient.setClientName("IST Demo Application");
             demoClient.setDescription("Demo client for testing IST Auth System integration");
             demoClient.setRedirectUris(Set.of(
@@ -249,4 +297,23 @@ public class OAuthClientService {
             logger.info("Default demo client created");
         }
     }
+    
+    private String defaultClientSecret(String clientId, String configured) {
+        if (StringUtils.hasText(configured)) {
+            return configured;
+        }
+        logger.warn("No secret configured for default client {}; seeded a random one, regenerate it to use the client", clientId);
+        return generateClientSecret();
+    }
+    
+    private void retireWellKnownSecret(String clientId, String configured) {
+        clientRepository.findByClientId(clientId)
+                .filter(client -> clientSecretHasher.matches(RETIRED_DEFAULT_SECRETS.get(clientId), client.getClientSecret()))
+                .ifPresent(client -> {
+                    client.setClientSecret(clientSecretHasher.hash(defaultClientSecret(clientId, configured)));
+                    clientRepository.save(client);
+                    secretVerificationCache.invalidateAfterCommit(clientId);
+                    logger.warn("Replaced the retired well-known secret of default client {}", clientId);
+                });
+    }
 }
@@ -0,0 +1,89 @@
+package com.ist.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Refresh Token Backfill Service moving refresh_tokens rows written before tokens were
+ * hashed. Each stored token gets its SHA-256 and a family of its own, so existing sessions
+ * keep working. The plaintext token column is kept, only relaxed to nullable so this release
+ * can insert without it, because instances still on the previous release read and write it
+ * during a rolling deploy; {@link RefreshTokenColumnMigration} drops it when asked to. Does
+ * nothing once the column is gone.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RefreshTokenBackfillService implements CommandLineRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenBackfillService.class);
+    
+    static final String LEGACY_COLUMN_NULLABLE =
+            "SELECT is_nullable FROM information_schema.columns WHERE table_schema = CURRENT_SCHEMA "
+            + "AND LOWER(table_name) = 'refresh_tokens' AND LOWER(column_name) = 'token'";
+    
+    private static final String SELECT_PENDING =
+            "SELECT id, token FROM refresh_tokens WHERE id > ? AND token_hash IS NULL ORDER BY id FETCH FIRST ? ROWS ONLY";
+    
+    private static final String UPDATE_HASH =
+            "UPDATE refresh_tokens SET token_hash = ?, family_id = COALESCE(family_id, ?) WHERE id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.refresh-token-backfill.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.refresh-token-backfill.batch-size:500}")
+    private int batchSize;
+    
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
+        List<String> legacyColumn = jdbcTemplate.queryForList(LEGACY_COLUMN_NULLABLE, String.class);
+        if (legacyColumn.isEmpty()) {
+            return;
+        }
+        if ("NO".equalsIgnoreCase(legacyColumn.get(0))) {
+            jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN token DROP NOT NULL");
+        }
+        
+        long afterId = 0;
+        int hashed = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_PENDING, afterId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                String token = (String) row.get("token");
+                updates.add(new Object[] {RefreshTokenService.hash(token), UUID.randomUUID().toString(), row.get("id")});
+            }
+            jdbcTemplate.batchUpdate(UPDATE_HASH, updates);
+            
+            hashed += rows.size();
+            afterId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+        
+        if (hashed > 0) {
+            logger.info("Refresh token backfill hashed {} tokens", hashed);
+        }
+    }
+}
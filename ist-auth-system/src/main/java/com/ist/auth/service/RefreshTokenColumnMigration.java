@@ -0,0 +1,56 @@
+package com.ist.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Refresh Token Column Migration dropping the legacy plaintext token column. Off by default
+ * and meant to be enabled for a single deploy once no instance runs a release that still
+ * reads or writes the column; it runs after {@link RefreshTokenBackfillService} and refuses
+ * to drop the column while any row is left without a hash.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RefreshTokenColumnMigration implements CommandLineRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenColumnMigration.class);
+    
+    private static final String COUNT_UNHASHED = "SELECT COUNT(*) FROM refresh_tokens WHERE token_hash IS NULL";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.refresh-token-backfill.drop-plaintext-column:false}")
+    private boolean enabled;
+    
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
+        List<String> legacyColumn = jdbcTemplate.queryForList(RefreshTokenBackfillService.LEGACY_COLUMN_NULLABLE, String.class);
+        if (legacyColumn.isEmpty()) {
+            return;
+        }
+        
+        Integer unhashed = jdbcTemplate.queryForObject(COUNT_UNHASHED, Integer.class);
+        if (unhashed != null && unhashed > 0) {
+            logger.warn("Keeping the plaintext refresh token column: {} rows have no hash yet", unhashed);
+            return;
+        }
+        
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens DROP COLUMN token");
+        logger.info("Dropped the plaintext refresh token column");
+    }
+}
@@ -8,16 +8,28 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
- * Refresh Token Service for managing JWT refresh tokens
+ * Refresh Token Service for managing JWT refresh tokens. Tokens are stored as SHA-256 hashes
+ * and grouped into families, one per login; rotation spends the presented token with a
+ * conditional UPDATE, and presenting a token that was already spent revokes its family.
+ * A token spent within the last few seconds is the exception, once: a client retrying a
+ * refresh whose response it lost, or two tabs refreshing at once, gets a successor of its
+ * own in the same family instead of ending the session. Any further use is a replay.
  * Developer: Manzi Niyongira Osee
  * Year: 2025
  */
@@ -33,24 +45,36 @@ public class RefreshTokenService {
     @Autowired
     private JwtService jwtService;
     
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
     @Value("${app.jwt.refresh-token-expiration:604800000}")
     private long refreshTokenExpiration;
     
     @Value("${app.jwt.max-refresh-tokens-per-user:5}")
     private int maxRefreshTokensPerUser;
     
+    @Value("${app.jwt.refresh-token-reuse-grace:5000}")
+    private long reuseGraceMillis;
+    
+    /**
+     * Signs the token before opening the transaction, so RSA signing never holds a pooled connection
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public RefreshToken createRefreshToken(User user) {
-        logger.debug("Creating refresh token for user: {}", user.getEmail());
-        
-        // Clean up old tokens if user has too many
-        cleanupUserTokens(user);
-        
         String tokenValue = jwtService.generateRefreshToken(user);
+        return transactionTemplate.execute(status -> {
+            // Make room for the new family if the user is at the session limit
+            refreshTokenRepository.revokeAllButNewest(user.getId(), Math.max(maxRefreshTokensPerUser - 1, 0));
+            return storeRefreshToken(user, tokenValue, UUID.randomUUID().toString());
+        });
+    }
+    
+    private RefreshToken storeRefreshToken(User user, String tokenValue, String familyId) {
+        logger.debug("Creating refresh token for user: {}", user.getEmail());
         
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setToken(tokenValue);
-        refreshToken.setUser(user);
-        refreshToken.setExpiresAt(LocalDateTime.now().plusSeconds(refreshTokenExpiration / 1000));
+        RefreshToken refreshToken = new RefreshToken(tokenValue, hash(tokenValue), familyId, user,
+                LocalDateTime.now().plusSeconds(refreshTokenExpiration / 1000));
         refreshToken.setRevoked(false);
         
         RefreshToken savedToken = refreshTokenRepository.save(refreshToken);
@@ -59,26 +83,16 @@ public class RefreshTokenService {
         return savedToken;
     }
     
+    /**
+     * Looks the token up by hash with its user fetched in the same query
+     */
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
-    }
-    
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiresAt().isBefore(LocalDateTime.now())) {
-            refreshTokenRepository.delete(token);
-            throw new RuntimeException("Refresh token was expired. Please make a new signin request");
-        }
-        
-        if (token.getRevoked()) {
-            throw new RuntimeException("Refresh token was revoked. Please make a new signin request");
-        }
-        
-        return token;
+        return refreshTokenRepository.findByTokenHashWithUser(hash(token));
     }
     
     public boolean isValidToken(String tokenValue) {
         try {
-            Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByToken(tokenValue);
+            Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByTokenHash(hash(tokenValue));
             if (tokenOpt.isEmpty()) {
                 return false;
             }
@@ -100,9 +114,19 @@ public class RefreshTokenService {
     }
     
     public void revokeToken(RefreshToken token) {
-        logger.debug("Revoking refresh token for user: {}", token.getUser().getEmail());
+        logger.debug("Revoking refresh token {}", token.getId());
+        refreshTokenRepository.revokeById(token.getId());
         token.setRevoked(true);
-        refreshTokenRepository.save(token);
+    }
+    
+    /**
+     * Called when a spent token is presented again: whoever holds the family's current token
+     * may be an attacker replaying a stolen one, so every session of that login ends
+     */
+    public void revokeFamily(RefreshToken token) {
+        int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId());
+        logger.warn("Refresh token reuse detected for user {}, revoked {} tokens of family {}",
+                token.getUser().getId(), revoked, token.getFamilyId());
     }
     
     public void revokeAllUserTokens(User user) {
@@ -123,39 +147,67 @@ public class RefreshTokenService {
         return refreshTokenRepository.countValidTokensByUser(user);
     }
     
-    private void cleanupUserTokens(User user) {
-        long tokenCount = countValidTokensByUser(user);
+    /**
+     * Whether a spent token was rotated recently enough, and has not used its grace yet, to be
+     * presented again without counting as a replay
+     */
+    public boolean isWithinReuseGrace(RefreshToken token) {
+        return token.getRotatedAt() != null && !Boolean.TRUE.equals(token.getGraceUsed())
+                && token.getRotatedAt().isAfter(LocalDateTime.now().minusNanos(reuseGraceMillis * 1_000_000));
+    }
+    
+    /**
+     * Spends the presented token and stores its successor in the same family. The new token is
+     * signed before the transaction opens; the conditional UPDATE decides the winner when the
+     * same token is presented concurrently. The first loser whose token was rotated within the
+     * reuse grace still gets a successor, which counts against the session limit as a login
+     * does; any other loser is treated as a replay.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RefreshToken rotateToken(RefreshToken presented) {
+        logger.debug("Rotating refresh token for user: {}", presented.getUser().getEmail());
         
-        if (tokenCount >= maxRefreshTokensPerUser) {
-            logger.debug("User {} has {} tokens, cleaning up oldest ones", user.getEmail(), tokenCount);
-            
-            List<RefreshToken> userTokens = getValidTokensByUser(user);
-            // Sort by creation date and remove oldest tokens
-            userTokens.stream()
-                    .sorted((t1, t2) -> t1.getCreatedAt().compareTo(t2.getCreatedAt()))
-                    .limit(tokenCount - maxRefreshTokensPerUser + 1)
-                    .forEach(this::revokeToken);
+        String tokenValue = jwtService.generateRefreshToken(presented.getUser());
+        RefreshToken rotated = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (refreshTokenRepository.revokeIfActive(presented.getTokenHash(), now) == 1) {
+                // Spending one token for one successor leaves the number of active tokens unchanged
+                return storeRefreshToken(presented.getUser(), tokenValue, presented.getFamilyId());
+            }
+            if (refreshTokenRepository.claimReuseGrace(presented.getTokenHash(),
+                    now.minusNanos(reuseGraceMillis * 1_000_000), now) == 0) {
+                return null;
+            }
+            RefreshToken sibling = storeRefreshToken(presented.getUser(), tokenValue, presented.getFamilyId());
+            refreshTokenRepository.revokeAllButNewest(presented.getUser().getId(), maxRefreshTokensPerUser);
+            return sibling;
+        });
+        
+        if (rotated == null) {
+            revokeFamily(presented);
+            throw new BadCredentialsException("Refresh token was already used. Please make a new signin request");
         }
+        return rotated;
     }
     
-    public RefreshToken rotateToken(RefreshToken oldToken) {
-        logger.debug("Rotating refresh token for user: {}", oldToken.getUser().getEmail());
-        
-        // Revoke old token
-        revokeToken(oldToken);
-        
-        // Create new token
-        return createRefreshToken(oldToken.getUser());
+    public static String hash(String tokenValue) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(tokenValue.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
     
     @Scheduled(fixedRate = 3600000) // Run every hour
     public void cleanupExpiredTokens() {
         logger.debug("Running scheduled cleanup of expired refresh tokens");
         
+        // Spent and revoked tokens are kept until they expire so that replays are still recognized
         LocalDateTime cutoffTime = LocalDateTime.now().minusDays(1);
-        refreshTokenRepository.deleteExpiredAndRevokedTokens(cutoffTime);
+        int deleted = refreshTokenRepository.deleteExpiredTokens(cutoffTime);
         
-        logger.debug("Expired refresh tokens cleanup completed");
+        logger.debug("Expired refresh tokens cleanup completed, deleted {}", deleted);
     }
     
     public void logoutUser(User user) {
@@ -173,7 +225,7 @@ public class RefreshTokenService {
     }
     
     public void revokeTokenByValue(String tokenValue) {
-        Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByToken(tokenValue);
+        Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByTokenHash(hash(tokenValue));
         if (tokenOpt.isPresent()) {
             revokeToken(tokenOpt.get());
         }
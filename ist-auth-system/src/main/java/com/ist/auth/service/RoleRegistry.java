@@ -0,0 +1,171 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.Role;
+import com.ist.auth.repository.RoleRepository;
+import com.ist.auth.security.RoleMask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Role Registry holding the handful of roles as an immutable snapshot, so resolving a role,
+ * its mask bit or its authorities never costs a query. The built-in roles keep their
+ * {@link RoleMask} bits; any other role takes the next free bit in id order. The snapshot is
+ * replaced wholesale when roles are created locally and on a fixed interval, which picks up
+ * roles created by other instances. The cached roles are detached and shared, so callers
+ * must not touch their lazy user collections.
+ * Developer: Manzi Niyongira Osee
+ * Year: 2025
+ */
+@Service
+public class RoleRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RoleRegistry.class);
+    
+    private static final String ROLE_PREFIX = "ROLE_";
+    
+    @Autowired
+    private RoleRepository roleRepository;
+    
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.roles.refresh-interval:300000}",
+            initialDelayString = "${app.roles.refresh-interval:300000}")
+    public void refresh() {
+        Snapshot next = Snapshot.of(roleRepository.findAll());
+        Snapshot previous = snapshot;
+        snapshot = next;
+        if (previous.byName.size() != next.byName.size()) {
+            logger.info("Role registry loaded {} roles", next.byName.size());
+        }
+    }
+    
+    /**
+     * Refreshes once the surrounding transaction has committed the role changes
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+    
+    public Optional<Role> findByName(String name) {
+        RoleEntry entry = name != null ? snapshot.byName.get(name) : null;
+        return entry != null ? Optional.of(entry.role()) : Optional.empty();
+    }
+    
+    public Role getDefaultRole() {
+        return findByName("STUDENT")
+                .orElseThrow(() -> new RuntimeException("Default role STUDENT not found"));
+    }
+    
+    public int bitFor(String roleName) {
+        RoleEntry entry = roleName != null ? snapshot.byName.get(roleName) : null;
+        return entry != null ? entry.bit() : RoleMask.bitFor(roleName);
+    }
+    
+    public int maskOf(Collection<Role> roles) {
+        int mask = RoleMask.NONE;
+        for (Role role : roles) {
+            mask |= bitFor(role.getName());
+        }
+        return mask;
+    }
+    
+    /**
+     * Authorities for a set of roles. Users with the same roles share one immutable list;
+     * roles the snapshot cannot represent in a mask get a list built for the call.
+     */
+    public List<GrantedAuthority> authoritiesFor(Collection<Role> roles) {
+        Snapshot current = snapshot;
+        int mask = RoleMask.NONE;
+        for (Role role : roles) {
+            RoleEntry entry = current.byName.get(role.getName());
+            if (entry == null || entry.bit() == RoleMask.NONE) {
+                return roles.stream()
+                        .<GrantedAuthority>map(unknown -> new SimpleGrantedAuthority(ROLE_PREFIX + unknown.getName()))
+                        .toList();
+            }
+            mask |= entry.bit();
+        }
+        return current.authoritiesByMask.computeIfAbsent(mask, current::authoritiesOf);
+    }
+    
+    private record RoleEntry(Role role, int bit, GrantedAuthority authority) {}
+    
+    private static final class Snapshot {
+        
+        private final Map<String, RoleEntry> byName;
+        private final List<RoleEntry> byBit;
+        private final ConcurrentHashMap<Integer, List<GrantedAuthority>> authoritiesByMask = new ConcurrentHashMap<>();
+        
+        private Snapshot(Map<String, RoleEntry> byName, List<RoleEntry> byBit) {
+            this.byName = byName;
+            this.byBit = byBit;
+        }
+        
+        static Snapshot of(Collection<Role> roles) {
+            List<Role> ordered = new ArrayList<>(roles);
+            ordered.sort(Comparator.comparing(Role::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+            
+            // Built-in bits stay reserved even before their role exists, since RoleMask hands them out statically
+            int used = RoleMask.ADMIN | RoleMask.TEACHER | RoleMask.STUDENT;
+            
+            Map<String, RoleEntry> byName = new HashMap<>();
+            List<RoleEntry> byBit = new ArrayList<>();
+            for (Role role : ordered) {
+                int bit = RoleMask.bitFor(role.getName());
+                if (bit == RoleMask.NONE) {
+                    // Bit 31 is left alone so masks stay positive; roles past that have no bit
+                    bit = Integer.lowestOneBit(~used & Integer.MAX_VALUE);
+                    used |= bit;
+                }
+                RoleEntry entry = new RoleEntry(role, bit, new SimpleGrantedAuthority(ROLE_PREFIX + role.getName()));
+                byName.put(role.getName(), entry);
+                if (bit != RoleMask.NONE) {
+                    byBit.add(entry);
+                }
+            }
+            return new Snapshot(Map.copyOf(byName), List.copyOf(byBit));
+        }
+        
+        List<GrantedAuthority> authoritiesOf(int mask) {
+            List<GrantedAuthority> authorities = new ArrayList<>(Integer.bitCount(mask));
+            for (RoleEntry entry : byBit) {
+                if ((mask & entry.bit()) != 0) {
+                    authorities.add(entry.authority());
+                }
+            }
+            return List.copyOf(authorities);
+        }
+    }
+}
@@ -2,19 +2,32 @@ package com.ist.auth.service;
 
 import com.ist.auth.entity.Role;
 import com.ist.auth.entity.User;
-import com.ist.auth.repository.RoleRepository;
 import com.ist.auth.repository.UserRepository;
+import com.ist.auth.security.PrincipalCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 /**
  * User Service for user management operations
@@ -27,92 +40,154 @@ public class UserService {
     
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     
+    private static final int MAX_USERNAME_ATTEMPTS = 8;
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private LoginAttemptService loginAttemptService;
+    
+    @Autowired
+    private BreachedPasswordService breachedPasswordService;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private AuthStageMetrics stageMetrics;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${app.identity-backfill.raw-fallback:true}")
+    private boolean rawIdentityFallback;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * Inserts optimistically: duplicates are detected by the unique constraints on email and
+     * username rather than by pre-check queries, which also closes the race between check and
+     * insert. BCrypt runs outside any transaction; only the insert holds a connection.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User createUser(String username, String email, String firstName, String lastName, String password, String roleName) {
         logger.info("Creating new user with email: {} and role: {}", email, roleName);
         
-        if (userRepository.existsByEmail(email)) {
-            throw new RuntimeException("User with email " + email + " already exists");
-        }
-        
-        if (userRepository.existsByUsername(username)) {
-            throw new RuntimeException("User with username " + username + " already exists");
-        }
+        stageMetrics.run(AuthStageMetrics.REGISTER, "breach_check", () -> rejectBreachedPassword(password));
         
         User user = new User(username, email, firstName, lastName);
-        user.setPasswordHash(passwordEncoder.encode(password));
+        user.setPasswordHash(stageMetrics.time(AuthStageMetrics.REGISTER, "password_hash",
+                () -> awaitHash(passwordHashingService.encode(password))));
         user.setEmailVerified(false); // Must verify email to login
         user.setAccountEnabled(true);
         
         // Assign specified role or default to STUDENT
         String roleToAssign = (roleName != null && !roleName.trim().isEmpty()) ? roleName.toUpperCase() : "STUDENT";
-        Role userRole = roleRepository.findByName(roleToAssign)
-                .orElseGet(() -> roleRepository.findByName("STUDENT")
-                    .orElseThrow(() -> new RuntimeException("Default role STUDENT not found")));
-        user.addRole(userRole);
+        user.getRoles().add(roleRegistry.findByName(roleToAssign).orElseGet(roleRegistry::getDefaultRole));
         
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = stageMetrics.time(AuthStageMetrics.REGISTER, "insert",
+                    () -> transactionTemplate.execute(status -> userRepository.save(user)));
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUser(e, email, username);
+        }
         logger.info("User created successfully with ID: {}", savedUser.getId());
         
         return savedUser;
     }
     
+    /**
+     * Links the provider to an existing account or creates one. A new account takes the email's
+     * local part as username, suffixed with the next free number found by a single prefix
+     * scan. Concurrent sign-ups, here or on other instances, can still pick the same name; the
+     * unique index rejects the loser, which rescans and retries, while losing on the email
+     * links to the winner's account.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User createOAuthUser(String email, String firstName, String lastName, String providerId, String provider) {
         logger.info("Creating OAuth user with email: {} from provider: {}", email, provider);
         
-        Optional<User> existingUser = userRepository.findByEmail(email);
+        Optional<User> existingUser = findByEmail(email);
         if (existingUser.isPresent()) {
-            User user = existingUser.get();
-            // Update provider info if user exists
-            user.setProviderId(providerId);
-            user.setAuthProvider(User.AuthProvider.valueOf(provider.toUpperCase()));
-            user.setEmailVerified(true); // OAuth emails are pre-verified
-            user.setLastLogin(LocalDateTime.now());
-            return userRepository.save(user);
+            return linkOAuthAccount(existingUser.get(), providerId, provider);
         }
         
-        // Create username from email
-        String username = email.split("@")[0];
-        int counter = 1;
-        while (userRepository.existsByUsername(username)) {
-            username = email.split("@")[0] + counter++;
+        String baseUsername = email.split("@")[0];
+        for (int attempt = 0; ; attempt++) {
+            User user = new User(allocateUsername(baseUsername, attempt), email, firstName, lastName);
+            user.setProviderId(providerId);
+            user.setAuthProvider(User.AuthProvider.valueOf(provider.toUpperCase()));
+            user.setEmailVerified(true);
+            user.setAccountEnabled(true);
+            
+            // Assign default role
+            user.getRoles().add(roleRegistry.getDefaultRole());
+            
+            try {
+                User savedUser = transactionTemplate.execute(status -> userRepository.save(user));
+                logger.info("OAuth user created successfully with ID: {}", savedUser.getId());
+                return savedUser;
+            } catch (DataIntegrityViolationException e) {
+                String constraint = violatedConstraint(e);
+                if (constraint.contains(User.EMAIL_CONSTRAINT)) {
+                    // A concurrent sign-up with the same email won the insert
+                    return linkOAuthAccount(findByEmail(email).orElseThrow(() -> e), providerId, provider);
+                }
+                if (!constraint.contains(User.USERNAME_CONSTRAINT) || attempt + 1 >= MAX_USERNAME_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Username {} was taken concurrently, retrying", user.getUsername());
+            }
         }
-        
-        User user = new User(username, email, firstName, lastName);
-        user.setProviderId(providerId);
-        user.setAuthProvider(User.AuthProvider.valueOf(provider.toUpperCase()));
-        user.setEmailVerified(true);
-        user.setAccountEnabled(true);
-        
-        // Assign default role
-        Role defaultRole = roleRepository.findByName("STUDENT")
-                .orElseThrow(() -> new RuntimeException("Default role STUDENT not found"));
-        user.addRole(defaultRole);
-        
-        User savedUser = userRepository.save(user);
-        logger.info("OAuth user created successfully with ID: {}", savedUser.getId());
-        
-        return savedUser;
     }
     
+    /**
+     * Falls back to the raw column for rows whose normalized copy is still missing; that
+     * probe only runs on a miss and only while app.identity-backfill.raw-fallback is on
+     */
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        String emailNorm = User.normalizeIdentity(email);
+        Optional<User> user = userRepository.findByEmailNorm(emailNorm);
+        if (user.isPresent() || !rawIdentityFallback || email == null) {
+            return user;
+        }
+        return userRepository.findUnnormalizedByEmail(rawCandidates(email, emailNorm)).stream().findFirst();
     }
     
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        String usernameNorm = User.normalizeIdentity(username);
+        Optional<User> user = userRepository.findByUsernameNorm(usernameNorm);
+        if (user.isPresent() || !rawIdentityFallback || username == null) {
+            return user;
+        }
+        return userRepository.findUnnormalizedByUsername(rawCandidates(username, usernameNorm)).stream().findFirst();
+    }
+    
+    /**
+     * Usernames cannot contain '@', so the input decides which unique index to probe
+     * instead of an OR across both columns.
+     */
+    private static List<String> rawCandidates(String identity, String normalized) {
+        String trimmed = identity.trim();
+        return trimmed.equals(normalized) ? List.of(normalized) : List.of(trimmed, normalized);
     }
     
     public Optional<User> findByEmailOrUsername(String emailOrUsername) {
-        return userRepository.findByEmailOrUsername(emailOrUsername, emailOrUsername);
+        return emailOrUsername.indexOf('@') >= 0
+                ? findByEmail(emailOrUsername)
+                : findByUsername(emailOrUsername);
     }
     
     public Optional<User> findById(Long id) {
@@ -125,53 +200,35 @@ public class UserService {
     
     public void verifyEmail(User user) {
         logger.info("Verifying email for user: {}", user.getEmail());
-        user.setEmailVerified(true);
-        userRepository.save(user);
-    }
-    
-    public void updateLastLogin(User user) {
-        user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
-    }
-    
-    public void resetFailedLoginAttempts(User user) {
-        user.resetFailedLoginAttempts();
-        userRepository.save(user);
-    }
-    
-    public void incrementFailedLoginAttempts(User user) {
-        user.incrementFailedLoginAttempts();
-        userRepository.save(user);
-        
-        if (user.getAccountLocked()) {
-            logger.warn("User account locked due to failed login attempts: {}", user.getEmail());
-        }
+        userRepository.markEmailVerified(user.getId());
+        applyWritten(user, u -> u.setEmailVerified(true));
     }
     
     public void unlockAccount(User user) {
         logger.info("Unlocking account for user: {}", user.getEmail());
-        user.resetFailedLoginAttempts();
-        userRepository.save(user);
+        userRepository.releaseLock(user.getId());
+        applyWritten(user, User::resetFailedLoginAttempts);
+        loginAttemptService.clear(user.getId());
     }
     
     public void assignRole(User user, String roleName) {
-        Role role = roleRepository.findByName(roleName)
+        Role role = roleRegistry.findByName(roleName)
                 .orElseThrow(() -> new RuntimeException("Role " + roleName + " not found"));
         
         if (!user.hasRole(roleName)) {
-            user.addRole(role);
-            userRepository.save(user);
+            userRepository.insertRole(user.getId(), role.getId());
+            applyWritten(user, u -> u.getRoles().add(role));
             logger.info("Role {} assigned to user: {}", roleName, user.getEmail());
         }
     }
     
     public void removeRole(User user, String roleName) {
-        Role role = roleRepository.findByName(roleName)
+        Role role = roleRegistry.findByName(roleName)
                 .orElseThrow(() -> new RuntimeException("Role " + roleName + " not found"));
         
         if (user.hasRole(roleName)) {
-            user.removeRole(role);
-            userRepository.save(user);
+            userRepository.deleteRole(user.getId(), role.getId());
+            applyWritten(user, u -> u.getRoles().removeIf(r -> r.getName().equals(roleName)));
             logger.info("Role {} removed from user: {}", roleName, user.getEmail());
         }
     }
@@ -187,16 +244,36 @@ public class UserService {
     public void deleteUser(Long userId) {
         logger.info("Deleting user with ID: {}", userId);
         userRepository.deleteById(userId);
+        principalCache.evictAfterCommit(userId);
     }
     
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        principalCache.evictAfterCommit(savedUser.getId());
+        return savedUser;
     }
     
     public void changePassword(User user, String newPassword) {
         logger.info("Changing password for user: {}", user.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        rejectBreachedPassword(newPassword);
+        updatePasswordHash(user, awaitHash(passwordHashingService.encode(newPassword)));
+    }
+    
+    /**
+     * Waits for a hash from the pool, rethrowing its failure unwrapped so a saturated pool
+     * surfaces as {@link RejectedExecutionException} rather than a CompletionException
+     */
+    private static String awaitHash(CompletableFuture<String> hash) {
+        try {
+            return hash.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    public void updatePasswordHash(User user, String passwordHash) {
+        userRepository.updatePasswordHash(user.getId(), passwordHash);
+        applyWritten(user, u -> u.setPasswordHash(passwordHash));
     }
     
     public long getTotalUserCount() {
@@ -221,5 +298,93 @@ public class UserService {
         
         logger.info("Cleaning up {} unverified users older than {} days", unverifiedUsers.size(), daysOld);
         userRepository.deleteAll(unverifiedUsers);
+        unverifiedUsers.forEach(user -> principalCache.evictAfterCommit(user.getId()));
+    }
+    
+    /**
+     * Maps a unique-constraint violation from the insert to the same errors the pre-checks raised.
+     * Constraints created before they were named carry generated names; only then is the
+     * database asked which identifier collided.
+     */
+    private RuntimeException duplicateUser(DataIntegrityViolationException e, String email, String username) {
+        String constraint = violatedConstraint(e);
+        
+        boolean emailTaken = constraint.contains(User.EMAIL_CONSTRAINT);
+        boolean usernameTaken = constraint.contains(User.USERNAME_CONSTRAINT);
+        if (!emailTaken && !usernameTaken) {
+            emailTaken = userRepository.existsByEmailNorm(User.normalizeIdentity(email));
+            usernameTaken = !emailTaken && userRepository.existsByUsernameNorm(User.normalizeIdentity(username));
+        }
+        
+        if (emailTaken) {
+            return new RuntimeException("User with email " + email + " already exists");
+        }
+        if (usernameTaken) {
+            return new RuntimeException("User with username " + username + " already exists");
+        }
+        return e;
+    }
+    
+    private User linkOAuthAccount(User user, String providerId, String provider) {
+        user.setProviderId(providerId);
+        user.setAuthProvider(User.AuthProvider.valueOf(provider.toUpperCase()));
+        user.setEmailVerified(true); // OAuth emails are pre-verified
+        user.setLastLogin(LocalDateTime.now());
+        principalCache.evictAfterCommit(user.getId());
+        return userRepository.save(user);
+    }
+    
+    /**
+     * Picks base, base1, base2, ... from one scan of the usernames sharing the prefix: the
+     * base when it is free, otherwise one past the highest numeric suffix. Retries after a
+     * lost race add a growing random gap, so racing sign-ups stop choosing the same number.
+     */
+    private String allocateUsername(String base, int attempt) {
+        String prefix = User.normalizeIdentity(base);
+        boolean baseTaken = false;
+        long maxSuffix = 0;
+        for (String taken : userRepository.findUsernameNormsLike(likePrefix(prefix))) {
+            String suffix = taken.substring(prefix.length());
+            if (suffix.isEmpty()) {
+                baseTaken = true;
+            } else if (suffix.length() <= 18 && suffix.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                maxSuffix = Math.max(maxSuffix, Long.parseLong(suffix));
+            }
+        }
+        
+        if (!baseTaken && attempt == 0) {
+            return base;
+        }
+        long gap = attempt == 0 ? 0 : ThreadLocalRandom.current().nextLong(1L << Math.min(attempt + 2, 20));
+        return base + (maxSuffix + 1 + gap);
+    }
+    
+    private static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+    
+    private static String violatedConstraint(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                ? violation.getConstraintName().toLowerCase(Locale.ROOT)
+                : "";
+    }
+    
+    /**
+     * Mirrors a change already written by a targeted UPDATE onto the caller's copy. A managed
+     * entity is detached first, otherwise dirty checking would flush it again as a full-row UPDATE.
+     */
+    private void applyWritten(User user, Consumer<User> change) {
+        if (entityManager.contains(user)) {
+            entityManager.detach(user);
+        }
+        change.accept(user);
+        principalCache.evictAfterCommit(user.getId());
+    }
+    
+    private void rejectBreachedPassword(String password) {
+        if (breachedPasswordService.isBreached(password)) {
+            throw new RuntimeException("This password has appeared in a data breach. Please choose a different password");
+        }
     }
 }
@@ -0,0 +1,138 @@
+package com.ist.auth.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ist.auth.dto.AuthResponse;
+import com.ist.auth.dto.UserResponse;
+import com.ist.auth.entity.Role;
+import com.ist.auth.entity.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes allocated per /login and /refresh response, the record responses written through
+ * cached ObjectWriters against the map responses written by the generic Jackson converter.
+ * Not part of the unit tests; run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class CachedWriterHttpMessageConverterBenchmark {
+
+	private static final String ACCESS_TOKEN = "eyJhbGciOiJSUzI1NiJ9." + "a".repeat(600) + ".signature";
+
+	private static final String REFRESH_TOKEN = "eyJhbGciOiJSUzI1NiJ9." + "r".repeat(650) + ".signature";
+
+	private static final int WARMUP = 20_000;
+
+	private static final int ROUNDS = 50_000;
+
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.findAndAddModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+
+	private final CachedWriterHttpMessageConverter converter = new CachedWriterHttpMessageConverter(objectMapper,
+			AuthResponse.class);
+
+	private final MappingJackson2HttpMessageConverter jacksonConverter = new MappingJackson2HttpMessageConverter(
+			objectMapper);
+
+	private final DiscardingOutputMessage output = new DiscardingOutputMessage();
+
+	private final User user = user();
+
+	@Test
+	void bytesAllocatedPerLoginAndRefreshResponse() throws Exception {
+		long legacyLogin = allocatedBytesPerResponse(
+				() -> jacksonConverter.write(legacyLoginResponse(), MediaType.APPLICATION_JSON, output));
+		long legacyRefresh = allocatedBytesPerResponse(
+				() -> jacksonConverter.write(legacyRefreshResponse(), MediaType.APPLICATION_JSON, output));
+		long login = allocatedBytesPerResponse(
+				() -> converter.write(AuthResponse.bearer(ACCESS_TOKEN, REFRESH_TOKEN, 900, UserResponse.from(user)),
+						MediaType.APPLICATION_JSON, output));
+		long refresh = allocatedBytesPerResponse(
+				() -> converter.write(AuthResponse.bearer(ACCESS_TOKEN, REFRESH_TOKEN, 900, null),
+						MediaType.APPLICATION_JSON, output));
+
+		System.out.printf("bytes allocated per response: login map %d, record %d; refresh map %d, record %d%n",
+				legacyLogin, login, legacyRefresh, refresh);
+		assertThat(login).isLessThan(legacyLogin);
+		assertThat(refresh).isLessThan(legacyRefresh);
+	}
+
+	private static long allocatedBytesPerResponse(ResponseWrite write) throws Exception {
+		for (int i = 0; i < WARMUP; i++) {
+			write.run();
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long before = threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < ROUNDS; i++) {
+			write.run();
+		}
+		return (threads.getCurrentThreadAllocatedBytes() - before) / ROUNDS;
+	}
+
+	private Map<String, Object> legacyLoginResponse() {
+		Map<String, Object> response = legacyRefreshResponse();
+		Map<String, Object> userResponse = new HashMap<>();
+		userResponse.put("id", user.getId());
+		userResponse.put("username", user.getUsername());
+		userResponse.put("email", user.getEmail());
+		userResponse.put("firstName", user.getFirstName());
+		userResponse.put("lastName", user.getLastName());
+		userResponse.put("emailVerified", user.getEmailVerified());
+		userResponse.put("authProvider", user.getAuthProvider().toString());
+		userResponse.put("roles", user.getRoles().stream().map(Role::getName).toList());
+		userResponse.put("createdAt", user.getCreatedAt());
+		userResponse.put("lastLogin", user.getLastLogin());
+		response.put("user", userResponse);
+		return response;
+	}
+
+	private Map<String, Object> legacyRefreshResponse() {
+		Map<String, Object> response = new HashMap<>();
+		response.put("accessToken", ACCESS_TOKEN);
+		response.put("refreshToken", REFRESH_TOKEN);
+		response.put("tokenType", "Bearer");
+		response.put("expiresIn", 900L);
+		return response;
+	}
+
+	private static User user() {
+		User user = new User("jdoe", "jdoe@ist.edu", "Jane", "Doe");
+		user.setId(42L);
+		user.setEmailVerified(true);
+		user.setCreatedAt(LocalDateTime.of(2025, 1, 15, 9, 30));
+		user.setLastLogin(LocalDateTime.of(2025, 6, 1, 8, 0));
+		user.getRoles().add(new Role("STUDENT", "Student"));
+		return user;
+	}
+
+	private interface ResponseWrite {
+
+		void run() throws Exception;
+
+	}
+
+	private static class DiscardingOutputMessage extends MockHttpOutputMessage {
+
+		@Override
+		public OutputStream getBody() {
+			return OutputStream.nullOutputStream();
+		}
+
+	}
+
+}
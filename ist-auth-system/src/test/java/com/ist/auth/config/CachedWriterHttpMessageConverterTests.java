@@ -0,0 +1,95 @@
+package com.ist.auth.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ist.auth.dto.AuthResponse;
+import com.ist.auth.dto.UserResponse;
+import com.ist.auth.entity.Role;
+import com.ist.auth.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedWriterHttpMessageConverterTests {
+
+	private static final String ACCESS_TOKEN = "eyJhbGciOiJSUzI1NiJ9." + "a".repeat(600) + ".signature";
+
+	private static final String REFRESH_TOKEN = "eyJhbGciOiJSUzI1NiJ9." + "r".repeat(650) + ".signature";
+
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.findAndAddModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+
+	private final CachedWriterHttpMessageConverter converter = new CachedWriterHttpMessageConverter(objectMapper,
+			AuthResponse.class);
+
+	private final User user = user();
+
+	@Test
+	void writesTheSameJsonAsTheMapResponses() throws Exception {
+		MockHttpOutputMessage login = new MockHttpOutputMessage();
+		converter.write(loginResponse(), MediaType.APPLICATION_JSON, login);
+		MockHttpOutputMessage refresh = new MockHttpOutputMessage();
+		converter.write(refreshResponse(), MediaType.APPLICATION_JSON, refresh);
+
+		assertThat(objectMapper.readTree(login.getBodyAsBytes()))
+				.isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(legacyLoginResponse())));
+		assertThat(objectMapper.readTree(refresh.getBodyAsBytes()))
+				.isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(legacyRefreshResponse())));
+		assertThat(converter.canRead(AuthResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(converter.canWrite(UserResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+	}
+
+	private AuthResponse loginResponse() {
+		return AuthResponse.bearer(ACCESS_TOKEN, REFRESH_TOKEN, 900, UserResponse.from(user));
+	}
+
+	private AuthResponse refreshResponse() {
+		return AuthResponse.bearer(ACCESS_TOKEN, REFRESH_TOKEN, 900, null);
+	}
+
+	private Map<String, Object> legacyLoginResponse() {
+		Map<String, Object> response = legacyRefreshResponse();
+		Map<String, Object> userResponse = new HashMap<>();
+		userResponse.put("id", user.getId());
+		userResponse.put("username", user.getUsername());
+		userResponse.put("email", user.getEmail());
+		userResponse.put("firstName", user.getFirstName());
+		userResponse.put("lastName", user.getLastName());
+		userResponse.put("emailVerified", user.getEmailVerified());
+		userResponse.put("authProvider", user.getAuthProvider().toString());
+		userResponse.put("roles", user.getRoles().stream().map(Role::getName).toList());
+		userResponse.put("createdAt", user.getCreatedAt());
+		userResponse.put("lastLogin", user.getLastLogin());
+		response.put("user", userResponse);
+		return response;
+	}
+
+	private Map<String, Object> legacyRefreshResponse() {
+		Map<String, Object> response = new HashMap<>();
+		response.put("accessToken", ACCESS_TOKEN);
+		response.put("refreshToken", REFRESH_TOKEN);
+		response.put("tokenType", "Bearer");
+		response.put("expiresIn", 900L);
+		return response;
+	}
+
+	private static User user() {
+		User user = new User("jdoe", "jdoe@ist.edu", "Jane", "Doe");
+		user.setId(42L);
+		user.setEmailVerified(true);
+		user.setCreatedAt(LocalDateTime.of(2025, 1, 15, 9, 30));
+		user.setLastLogin(LocalDateTime.of(2025, 6, 1, 8, 0));
+		user.getRoles().add(new Role("STUDENT", "Student"));
+		return user;
+	}
+
+}
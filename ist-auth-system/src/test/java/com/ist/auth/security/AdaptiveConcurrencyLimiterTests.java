@@ -0,0 +1,63 @@
+package com.ist.auth.security;
+
+import com.ist.auth.security.AdaptiveConcurrencyLimiter.LatencyGroup;
+import com.ist.auth.security.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long MILLIS = 1_000_000L;
+
+	private static final int WINDOW = 20;
+
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 10, 400, 2.0, 0.9, 0.6, WINDOW);
+
+	@Test
+	void shiftTowardsHashingRoutesDoesNotShrinkTheLimit() {
+		// Mostly fast traffic establishes both baselines
+		for (int i = 0; i < 10; i++) {
+			complete(LatencyGroup.STANDARD, WINDOW, 1 * MILLIS);
+			complete(LatencyGroup.HASHING, WINDOW, 250 * MILLIS);
+		}
+		int before = limiter.getLimit();
+
+		// A login wave: the overall median jumps from ~1 ms to ~250 ms, per-group latency is unchanged
+		for (int i = 0; i < 10; i++) {
+			complete(LatencyGroup.HASHING, WINDOW, 250 * MILLIS);
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(before);
+	}
+
+	@Test
+	void regressionWithinAGroupShrinksTheLimit() {
+		complete(LatencyGroup.STANDARD, WINDOW, 1 * MILLIS);
+		int before = limiter.getLimit();
+
+		complete(LatencyGroup.STANDARD, WINDOW, 10 * MILLIS);
+
+		assertThat(limiter.getLimit()).isLessThan(before);
+		assertThat(limiter.getBaselineMillis(LatencyGroup.STANDARD)).isLessThan(1.1);
+	}
+
+	@Test
+	void lowPriorityIsCappedAtItsShare() {
+		int lowShare = (int) (limiter.getLimit() * 0.6);
+		for (int i = 0; i < lowShare; i++) {
+			assertThat(limiter.tryAcquire(Priority.LOW)).isTrue();
+		}
+
+		assertThat(limiter.tryAcquire(Priority.LOW)).isFalse();
+		assertThat(limiter.tryAcquire(Priority.HIGH)).isTrue();
+	}
+
+	private void complete(LatencyGroup group, int requests, long latencyNanos) {
+		for (int i = 0; i < requests; i++) {
+			limiter.tryAcquire(Priority.HIGH);
+			limiter.release(group, latencyNanos);
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.ist.auth.security;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-validation cost of a client secret, BCrypt against HMAC-SHA256. Not part of the unit
+ * tests; run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class ClientSecretHasherBenchmark {
+
+	private static final String SECRET = "Zq3v9Xh1L0bT7rWc4yFk2NpA8sDe6GjUmRoIaQlE5tY";
+
+	private static final int WARMUP = 20_000;
+
+	@Test
+	void hmacVerificationAgainstBcrypt() {
+		ClientSecretHasher hasher = new ClientSecretHasher("benchmark-pepper", new BCryptPasswordEncoder(10));
+		String hash = hasher.hash(SECRET);
+		for (int i = 0; i < WARMUP; i++) {
+			hasher.matches(SECRET, hash);
+		}
+		double hmacNanos = nanosPerCall(200_000, () -> hasher.matches(SECRET, hash));
+
+		System.out.printf("client secret verification: hmac-sha256 %.2f us%n", hmacNanos / 1_000);
+		for (int cost : new int[] {10, 12}) {
+			BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+			String legacy = bcrypt.encode(SECRET);
+			bcrypt.matches(SECRET, legacy);
+			double bcryptNanos = nanosPerCall(10, () -> bcrypt.matches(SECRET, legacy));
+
+			System.out.printf("client secret verification: bcrypt(%d) %.1f us, %.0fx hmac%n",
+					cost, bcryptNanos / 1_000, bcryptNanos / hmacNanos);
+			assertThat(hmacNanos).isLessThan(bcryptNanos / 100);
+		}
+	}
+
+	private static double nanosPerCall(int rounds, Runnable call) {
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			call.run();
+		}
+		return (System.nanoTime() - start) / (double) rounds;
+	}
+
+}
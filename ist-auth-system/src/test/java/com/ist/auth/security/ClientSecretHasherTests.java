@@ -0,0 +1,35 @@
+package com.ist.auth.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientSecretHasherTests {
+
+	private static final String SECRET = "Zq3v9Xh1L0bT7rWc4yFk2NpA8sDe6GjUmRoIaQlE5tY";
+
+	private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(10);
+
+	private final ClientSecretHasher hasher = new ClientSecretHasher("test-pepper", bcrypt);
+
+	@Test
+	void verifiesHmacHashes() {
+		String hash = hasher.hash(SECRET);
+
+		assertThat(hash).startsWith(ClientSecretHasher.PREFIX);
+		assertThat(hasher.matches(SECRET, hash)).isTrue();
+		assertThat(hasher.matches(SECRET + "x", hash)).isFalse();
+		assertThat(hasher.needsMigration(hash)).isFalse();
+		assertThat(new ClientSecretHasher("other-pepper", bcrypt).matches(SECRET, hash)).isFalse();
+	}
+
+	@Test
+	void verifiesLegacyBcryptHashesAndFlagsThemForMigration() {
+		String legacy = bcrypt.encode(SECRET);
+
+		assertThat(hasher.matches(SECRET, legacy)).isTrue();
+		assertThat(hasher.needsMigration(legacy)).isTrue();
+	}
+
+}
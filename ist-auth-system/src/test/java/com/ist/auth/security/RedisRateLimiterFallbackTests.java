@@ -0,0 +1,103 @@
+package com.ist.auth.security;
+
+import com.ist.auth.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The paths of {@link RedisRateLimiter} that need no Redis server, kept apart from the
+ * container tests so they run on machines without Docker.
+ */
+class RedisRateLimiterFallbackTests {
+
+	@Test
+	void fallsBackToLocalLimitsWhenRedisIsDown() {
+		LettuceConnectionFactory unreachable = new LettuceConnectionFactory("localhost", 1);
+		unreachable.afterPropertiesSet();
+		unreachable.start();
+		try {
+			RedisRateLimiter limiter = new RedisRateLimiter(new StringRedisTemplate(unreachable), localLimiter(),
+					settings(), new SimpleMeterRegistry());
+			List<RateLimiter.Quota> quotas = List.of(quota("ip", 1));
+
+			assertThat(limiter.tryAcquire(quotas).allowed()).isTrue();
+			assertThat(limiter.tryAcquire(quotas).allowed()).isFalse();
+		} finally {
+			unreachable.destroy();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void skipsRedisDuringTheFailureCooldown() {
+		StringRedisTemplate redis = mock(StringRedisTemplate.class);
+		when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+				.thenThrow(new RedisConnectionFailureException("down"));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		RedisRateLimiter limiter = new RedisRateLimiter(redis, localLimiter(), settings(), meterRegistry);
+		List<RateLimiter.Quota> quotas = List.of(quota("ip", 10));
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.tryAcquire(quotas).allowed()).isTrue();
+		}
+
+		verify(redis, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+		assertThat(meterRegistry.counter("auth.ratelimit.redis.fallback").count()).isEqualTo(3);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void refundsLocalTokensWhenRedisRejects() {
+		// The shared budget is spent by other replicas: not allowed, decided by quota 1, retry in 1 s
+		StringRedisTemplate redis = mock(StringRedisTemplate.class);
+		when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+				.thenReturn(List.of(0L, 1L, 0L, 1_000_000L, 60_000_000L));
+		TokenBucketRateLimiter local = localLimiter();
+		RedisRateLimiter limiter = new RedisRateLimiter(redis, local, settings(), new SimpleMeterRegistry());
+		List<RateLimiter.Quota> quotas = List.of(quota("ip", 2));
+
+		for (int i = 0; i < 3; i++) {
+			RateLimiter.Decision rejected = limiter.tryAcquire(quotas);
+			assertThat(rejected.allowed()).isFalse();
+			assertThat(rejected.retryAfter()).isEqualTo(Duration.ofSeconds(1));
+		}
+
+		assertThat(local.tryAcquire(quotas).remaining()).isEqualTo(1);
+	}
+
+	private static RateLimitProperties.Redis settings() {
+		RateLimitProperties.Redis settings = new RateLimitProperties.Redis();
+		settings.setFailureCooldown(Duration.ofMinutes(1));
+		return settings;
+	}
+
+	private static TokenBucketRateLimiter localLimiter() {
+		TokenBucketRateLimiter local = new TokenBucketRateLimiter();
+		ReflectionTestUtils.setField(local, "properties", new RateLimitProperties());
+		ReflectionTestUtils.setField(local, "meterRegistry", new SimpleMeterRegistry());
+		local.init();
+		return local;
+	}
+
+	private static RateLimiter.Quota quota(String dimension, int limit) {
+		return new RateLimiter.Quota("test:" + dimension, UUID.randomUUID().toString(), limit, Duration.ofMinutes(1), limit);
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.ist.auth.security;
+
+import com.ist.auth.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class RedisRateLimiterTests {
+
+	@Container
+	static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	private static StringRedisTemplate redisTemplate;
+
+	private final RateLimiter allowAll = quotas -> RateLimiter.Decision.unlimited();
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@Test
+	void sharesBucketsAcrossInstances() {
+		RedisRateLimiter first = limiter(redisTemplate, new RateLimitProperties.Redis());
+		RedisRateLimiter second = limiter(redisTemplate, new RateLimitProperties.Redis());
+		List<RateLimiter.Quota> quotas = List.of(quota("ip", 4));
+
+		assertThat(first.tryAcquire(quotas).allowed()).isTrue();
+		assertThat(second.tryAcquire(quotas).allowed()).isTrue();
+		assertThat(first.tryAcquire(quotas).allowed()).isTrue();
+		RateLimiter.Decision last = second.tryAcquire(quotas);
+		assertThat(last.allowed()).isTrue();
+		assertThat(last.remaining()).isZero();
+
+		RateLimiter.Decision rejected = first.tryAcquire(quotas);
+		assertThat(rejected.allowed()).isFalse();
+		assertThat(rejected.retryAfter()).isPositive();
+	}
+
+	@Test
+	void consumesNothingWhenAnyQuotaRejects() {
+		RedisRateLimiter limiter = limiter(redisTemplate, new RateLimitProperties.Redis());
+		RateLimiter.Quota ip = quota("ip", 10);
+		RateLimiter.Quota user = quota("user", 1);
+
+		assertThat(limiter.tryAcquire(List.of(ip, user)).allowed()).isTrue();
+		assertThat(limiter.tryAcquire(List.of(ip, user)).allowed()).isFalse();
+
+		RateLimiter.Decision ipOnly = limiter.tryAcquire(List.of(ip));
+		assertThat(ipOnly.allowed()).isTrue();
+		assertThat(ipOnly.remaining()).isEqualTo(8);
+	}
+
+	@Test
+	void refundsLocalTokensWhenRedisRejects() {
+		TokenBucketRateLimiter secondLocal = localLimiter();
+		RedisRateLimiter first = new RedisRateLimiter(redisTemplate, localLimiter(), new RateLimitProperties.Redis(),
+				new SimpleMeterRegistry());
+		RedisRateLimiter second = new RedisRateLimiter(redisTemplate, secondLocal, new RateLimitProperties.Redis(),
+				new SimpleMeterRegistry());
+		List<RateLimiter.Quota> quotas = List.of(quota("ip", 2));
+
+		assertThat(first.tryAcquire(quotas).allowed()).isTrue();
+		assertThat(first.tryAcquire(quotas).allowed()).isTrue();
+		for (int i = 0; i < 3; i++) {
+			assertThat(second.tryAcquire(quotas).allowed()).isFalse();
+		}
+
+		// The rejected attempts left the second replica's own budget untouched
+		assertThat(secondLocal.tryAcquire(quotas).remaining()).isEqualTo(1);
+	}
+
+	private static TokenBucketRateLimiter localLimiter() {
+		TokenBucketRateLimiter local = new TokenBucketRateLimiter();
+		ReflectionTestUtils.setField(local, "properties", new RateLimitProperties());
+		ReflectionTestUtils.setField(local, "meterRegistry", new SimpleMeterRegistry());
+		local.init();
+		return local;
+	}
+
+	private RedisRateLimiter limiter(StringRedisTemplate template, RateLimitProperties.Redis settings) {
+		return new RedisRateLimiter(template, allowAll, settings, new SimpleMeterRegistry());
+	}
+
+	private static RateLimiter.Quota quota(String dimension, int limit) {
+		return new RateLimiter.Quota("test:" + dimension, UUID.randomUUID().toString(), limit, Duration.ofMinutes(1), limit);
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.ist.auth.security;
+
+import com.ist.auth.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTests {
+
+	private static final int MAX_KEYS = 16;
+
+	private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+
+	@BeforeEach
+	void setUp() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setMaxKeys(MAX_KEYS);
+		ReflectionTestUtils.setField(limiter, "properties", properties);
+		ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+		limiter.init();
+	}
+
+	@Test
+	void fullKeyMapEvictsLeastRecentlyUsedInsteadOfSharingABucket() {
+		for (int i = 0; i < MAX_KEYS; i++) {
+			assertThat(acquire("flood-" + i)).isTrue();
+		}
+		assertThat(acquire("flood-" + (MAX_KEYS - 1))).isFalse();
+
+		// Each newcomer gets a bucket of its own rather than one pooled overflow bucket
+		assertThat(acquire("newcomer-1")).isTrue();
+		assertThat(acquire("newcomer-2")).isTrue();
+		assertThat(acquire("newcomer-2")).isFalse();
+
+		// The most recently used key survived the eviction and is still limited
+		assertThat(acquire("flood-" + (MAX_KEYS - 1))).isFalse();
+		assertThat(limiter.getTrackedKeys()).isLessThanOrEqualTo(MAX_KEYS);
+	}
+
+	@Test
+	void refundRestoresTheDrawnToken() {
+		List<RateLimiter.Quota> quotas = List.of(new RateLimiter.Quota("test:ip", "refunded", 2, Duration.ofMinutes(1), 2));
+
+		assertThat(limiter.tryAcquire(quotas).remaining()).isEqualTo(1);
+		limiter.refund(quotas);
+
+		assertThat(limiter.tryAcquire(quotas).remaining()).isEqualTo(1);
+	}
+
+	private boolean acquire(String id) {
+		return limiter.tryAcquire(List.of(new RateLimiter.Quota("test:ip", id, 1, Duration.ofMinutes(1), 1))).allowed();
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.ist.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BreachedPasswordServiceTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void emptyFileDisablesTheCheck() throws IOException {
+		BreachedPasswordService service = load(corpus(List.of()));
+
+		assertThat(service.isEnabled()).isFalse();
+		assertThat(service.isBreached("password")).isFalse();
+	}
+
+	@Test
+	void fileThatIsNotWholeRecordsIsRejected() throws IOException {
+		Path file = directory.resolve("truncated.bin");
+		byte[] bytes = Files.readAllBytes(corpus(List.of(sha1("password"), sha1("letmein"))));
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+		BreachedPasswordService service = load(file);
+
+		assertThat(service.isEnabled()).isFalse();
+		assertThat(service.isBreached("password")).isFalse();
+	}
+
+	@Test
+	void findsEveryRecordIncludingTheFirstAndLast() throws IOException {
+		List<String> passwords = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			passwords.add("password" + i);
+		}
+		passwords.sort(Comparator.comparing(BreachedPasswordServiceTests::sha1, Arrays::compareUnsigned));
+
+		BreachedPasswordService service = load(corpus(passwords.stream().map(BreachedPasswordServiceTests::sha1).toList()));
+
+		assertThat(service.isEnabled()).isTrue();
+		assertThat(service.isBreached(passwords.get(0))).isTrue();
+		assertThat(service.isBreached(passwords.get(passwords.size() - 1))).isTrue();
+		assertThat(passwords).allMatch(service::isBreached);
+		assertThat(service.isBreached("not-in-the-corpus")).isFalse();
+	}
+
+	@Test
+	void searchesRunsOfRecordsSharingTheInterpolatedPrefix() throws IOException {
+		List<byte[]> records = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			records.add(sha1("filler" + i));
+		}
+		// Neighbours agree with the target on the 8 bytes interpolation uses and differ after them
+		byte[] target = sha1("correct horse battery staple");
+		for (int i = 1; i <= 40; i++) {
+			byte[] sibling = target.clone();
+			sibling[8 + i % 12] ^= (byte) i;
+			records.add(sibling);
+		}
+
+		assertThat(load(corpus(records)).isBreached("correct horse battery staple")).isFalse();
+
+		records.add(target);
+		assertThat(load(corpus(records)).isBreached("correct horse battery staple")).isTrue();
+	}
+
+	private BreachedPasswordService load(Path file) {
+		BreachedPasswordService service = new BreachedPasswordService();
+		ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "corpusFile", file.toString());
+		service.init();
+		return service;
+	}
+
+	private Path corpus(List<byte[]> records) throws IOException {
+		List<byte[]> sorted = new ArrayList<>(records);
+		sorted.sort(Arrays::compareUnsigned);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] record : sorted) {
+			out.write(record);
+		}
+		return Files.write(Files.createTempFile(directory, "corpus", ".bin"), out.toByteArray());
+	}
+
+	private static byte[] sha1(String password) {
+		try {
+			return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
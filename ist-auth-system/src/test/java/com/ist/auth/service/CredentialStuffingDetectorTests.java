@@ -0,0 +1,54 @@
+package com.ist.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CredentialStuffingDetectorTests {
+
+	private static final int THRESHOLD = 5;
+
+	private final CredentialStuffingDetector detector = new CredentialStuffingDetector();
+
+	@BeforeEach
+	void setUp() {
+		// A one-cell sketch makes every key collide, so estimates alone would block everyone
+		ReflectionTestUtils.setField(detector, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(detector, "enabled", true);
+		ReflectionTestUtils.setField(detector, "sketchWidth", 1);
+		ReflectionTestUtils.setField(detector, "sketchDepth", 1);
+		ReflectionTestUtils.setField(detector, "topK", 10);
+		ReflectionTestUtils.setField(detector, "ipPrefixBlockThreshold", (long) THRESHOLD);
+		ReflectionTestUtils.setField(detector, "blockDuration", Duration.ofMinutes(15));
+		ReflectionTestUtils.setField(detector, "maxBlocked", 100);
+		detector.init();
+	}
+
+	@Test
+	void blocksAPrefixOnceItsExactCountReachesTheThreshold() {
+		for (int i = 0; i < THRESHOLD; i++) {
+			assertThat(detector.blockedForSeconds("203.0.113.7", "bot")).isZero();
+			detector.recordFailure("203.0.113." + i, "bot", "victim" + i);
+		}
+
+		assertThat(detector.blockedForSeconds("203.0.113.99", "bot")).isPositive();
+	}
+
+	@Test
+	void doesNotBlockAQuietPrefixWhoseEstimateIsInflatedByCollisions() {
+		for (int i = 0; i < THRESHOLD - 1; i++) {
+			detector.recordFailure("203.0.113.1", "bot", "victim" + i);
+		}
+
+		detector.recordFailure("198.51.100.20", "browser", "alice");
+
+		assertThat(detector.blockedForSeconds("198.51.100.20", "browser")).isZero();
+		assertThat(detector.blockedForSeconds("203.0.113.1", "bot")).isZero();
+	}
+
+}
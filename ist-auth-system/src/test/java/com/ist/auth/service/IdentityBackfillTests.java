@@ -0,0 +1,85 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:identity-backfill;DB_CLOSE_DELAY=-1",
+		"app.oauth.client-secret-pepper=test-pepper"})
+@ActiveProfiles("prod")
+class IdentityBackfillTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private IdentityBackfillService identityBackfillService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void rowsWithoutNormalizedIdentifiersAreFoundByTheirRawValues() {
+		// As written by an instance on the previous release during a rolling deploy
+		insertLegacyUser("Legacy.Person", "Legacy.Person@Example.com");
+
+		assertThat(userService.findByEmailOrUsername("Legacy.Person@Example.com")).isPresent();
+		assertThat(userService.findByEmailOrUsername("legacy.person@example.com")).isEmpty();
+		assertThat(userService.findByEmailOrUsername("Legacy.Person")).isPresent();
+
+		identityBackfillService.afterSingletonsInstantiated();
+
+		User user = userService.findByEmailOrUsername("LEGACY.PERSON@example.com").orElseThrow();
+		assertThat(user.getEmailNorm()).isEqualTo("legacy.person@example.com");
+		assertThat(user.getUsernameNorm()).isEqualTo("legacy.person");
+	}
+
+	@Test
+	void identifierClaimedByAPeerDuringTheBatchDoesNotFailTheBackfill() {
+		insertLegacyUser("Racing.Person", "Racing.Person@Example.com");
+		// Another instance wins a unique index inside the batch; the rows are then written one by one
+		JdbcTemplate racing = spy(jdbcTemplate);
+		doThrow(new DuplicateKeyException("uk_users_email_norm")).when(racing).batchUpdate(anyString(), anyList());
+		ReflectionTestUtils.setField(identityBackfillService, "jdbcTemplate", racing);
+		try {
+			identityBackfillService.afterSingletonsInstantiated();
+		}
+		finally {
+			ReflectionTestUtils.setField(identityBackfillService, "jdbcTemplate", jdbcTemplate);
+		}
+
+		User user = userService.findByEmailOrUsername("racing.person@example.com").orElseThrow();
+		assertThat(user.getUsernameNorm()).isEqualTo("racing.person");
+	}
+
+	@Test
+	void legacyUsernameWithAtSignCanStillBeSaved() {
+		insertLegacyUser("odd@name", "Odd.Name@Example.com");
+		identityBackfillService.afterSingletonsInstantiated();
+
+		User user = userService.findByEmailOrUsername("odd.name@example.com").orElseThrow();
+		user.setLastLogin(LocalDateTime.now());
+
+		assertThat(userService.updateUser(user).getUsername()).isEqualTo("odd@name");
+	}
+
+	private void insertLegacyUser(String username, String email) {
+		jdbcTemplate.update("INSERT INTO users (username, email, first_name, last_name, email_verified, account_locked, "
+				+ "account_enabled, auth_provider, created_at) VALUES (?, ?, 'Legacy', 'Person', true, false, true, "
+				+ "'LOCAL', CURRENT_TIMESTAMP)", username, email);
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:oauth-signup;DB_CLOSE_DELAY=-1",
+		"app.oauth.client-secret-pepper=test-pepper"})
+@ActiveProfiles("prod")
+class OAuthSignupConcurrencyTests {
+
+	private static final int THREADS = 16;
+
+	@Autowired
+	private UserService userService;
+
+	@Test
+	void sharedLocalPartGetsDistinctUsernames() throws Exception {
+		List<User> users = hammer(i -> () -> userService.createOAuthUser(
+				"Jane.Doe@provider" + i + ".example", "Jane", "Doe", "provider-id-" + i, "LINKEDIN"));
+
+		assertThat(users).extracting(User::getId).doesNotHaveDuplicates();
+		assertThat(users).extracting(User::getUsernameNorm).doesNotHaveDuplicates()
+				.allMatch(username -> username.matches("jane\\.doe\\d*"));
+		assertThat(users).extracting(User::getUsernameNorm).contains("jane.doe");
+	}
+
+	@Test
+	void sameEmailLinksToOneAccount() throws Exception {
+		List<User> users = hammer(i -> () -> userService.createOAuthUser(
+				"same.person@example.com", "Same", "Person", "provider-id", "LINKEDIN"));
+
+		assertThat(users).extracting(User::getId).containsOnly(users.get(0).getId());
+		assertThat(userService.findByEmail("SAME.PERSON@example.com")).isPresent();
+	}
+
+	@Test
+	void suffixContinuesAfterHighestTakenNumber() {
+		userService.createOAuthUser("max_suffix@a.example", "Max", "Suffix", "a", "LINKEDIN");
+		userService.createOAuthUser("max_suffix41@b.example", "Max", "Suffix", "b", "LINKEDIN");
+		userService.createOAuthUser("maxXsuffix99@c.example", "Max", "Suffix", "c", "LINKEDIN");
+
+		User next = userService.createOAuthUser("max_suffix@d.example", "Max", "Suffix", "d", "LINKEDIN");
+
+		// '_' is a LIKE wildcard; maxXsuffix99 must not count as a suffix of max_suffix
+		assertThat(next.getUsername()).isEqualTo("max_suffix42");
+	}
+
+	private List<User> hammer(IntFunction<Callable<User>> signup) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<User>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				Callable<User> call = signup.apply(i);
+				futures.add(executor.submit(() -> {
+					start.await();
+					return call.call();
+				}));
+			}
+			start.countDown();
+
+			List<User> users = new ArrayList<>();
+			for (Future<User> future : futures) {
+				users.add(future.get());
+			}
+			return users;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
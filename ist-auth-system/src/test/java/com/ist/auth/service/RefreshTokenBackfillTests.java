@@ -0,0 +1,110 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.RefreshToken;
+import com.ist.auth.entity.User;
+import com.ist.auth.repository.RefreshTokenRepository;
+import com.ist.auth.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:refresh-backfill;DB_CLOSE_DELAY=-1",
+		"app.oauth.client-secret-pepper=test-pepper"})
+@ActiveProfiles("prod")
+class RefreshTokenBackfillTests {
+
+	@Autowired
+	private RefreshTokenBackfillService backfillService;
+
+	@Autowired
+	private RefreshTokenColumnMigration columnMigration;
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User user;
+
+	@BeforeEach
+	void legacySchema() {
+		// The table as the previous release left it: a mandatory plaintext column
+		jdbcTemplate.update("DELETE FROM refresh_tokens");
+		jdbcTemplate.execute("ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token VARCHAR(1000) NOT NULL");
+		jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN token SET NOT NULL");
+		user = userRepository.findByEmailNorm("legacy.session@example.com").orElseGet(() -> {
+			User legacy = new User("legacy.session", "legacy.session@example.com", "Legacy", "Session");
+			legacy.setEmailVerified(true);
+			legacy.setAccountEnabled(true);
+			return userRepository.save(legacy);
+		});
+	}
+
+	@Test
+	void backfillHashesLegacyTokensAndKeepsTheColumn() {
+		insertLegacyToken("legacy-token-1");
+		insertLegacyToken("legacy-token-2");
+
+		backfillService.run();
+
+		RefreshToken first = refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("legacy-token-1")).orElseThrow();
+		RefreshToken second = refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("legacy-token-2")).orElseThrow();
+		assertThat(first.getFamilyId()).isNotNull().isNotEqualTo(second.getFamilyId());
+		assertThat(legacyColumn()).containsExactly("YES");
+
+		// Existing sessions keep working, and this release can insert without the plaintext
+		assertThat(authenticationService.refreshToken("legacy-token-1").refreshToken()).isNotBlank();
+
+		String familyId = first.getFamilyId();
+		backfillService.run();
+		assertThat(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("legacy-token-1")).orElseThrow()
+				.getFamilyId()).isEqualTo(familyId);
+	}
+
+	@Test
+	void columnIsDroppedOnlyWhenEnabledAndEveryRowIsHashed() {
+		insertLegacyToken("legacy-token-3");
+
+		columnMigration.run();
+		assertThat(legacyColumn()).isNotEmpty();
+
+		ReflectionTestUtils.setField(columnMigration, "enabled", true);
+		try {
+			columnMigration.run();
+			assertThat(legacyColumn()).isNotEmpty();
+
+			backfillService.run();
+			columnMigration.run();
+			assertThat(legacyColumn()).isEmpty();
+		}
+		finally {
+			ReflectionTestUtils.setField(columnMigration, "enabled", false);
+		}
+	}
+
+	private void insertLegacyToken(String token) {
+		jdbcTemplate.update("INSERT INTO refresh_tokens (token, user_id, expires_at, revoked, created_at) "
+				+ "VALUES (?, ?, ?, false, CURRENT_TIMESTAMP)", token, user.getId(), LocalDateTime.now().plusDays(1));
+	}
+
+	private List<String> legacyColumn() {
+		return jdbcTemplate.queryForList(RefreshTokenBackfillService.LEGACY_COLUMN_NULLABLE, String.class);
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.ist.auth.service;
+
+import com.ist.auth.dto.AuthResponse;
+import com.ist.auth.entity.RefreshToken;
+import com.ist.auth.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:refresh-rotation;DB_CLOSE_DELAY=-1",
+		"app.oauth.client-secret-pepper=test-pepper"})
+@ActiveProfiles("prod")
+class RefreshTokenRotationTests {
+
+	private static final int THREADS = 2;
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void onlyTheHashOfATokenIsStored() {
+		String token = login("hashed").refreshToken();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens WHERE token_hash = ?",
+				Integer.class, RefreshTokenService.hash(token))).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns "
+				+ "WHERE LOWER(table_name) = 'refresh_tokens' AND LOWER(column_name) = 'token'", Integer.class)).isZero();
+	}
+
+	@Test
+	void rotationSpendsTheTokenAndKeepsTheFamily() {
+		String token = login("rotation").refreshToken();
+
+		String next = authenticationService.refreshToken(token).refreshToken();
+
+		assertThat(next).isNotEqualTo(token);
+		assertThat(row(token).getRevoked()).isTrue();
+		assertThat(row(token).getRotatedAt()).isNotNull();
+		assertThat(row(next).getRevoked()).isFalse();
+		assertThat(row(next).getFamilyId()).isEqualTo(row(token).getFamilyId());
+	}
+
+	@Test
+	void replayAfterTheGraceRevokesTheFamily() {
+		String token = login("replay").refreshToken();
+		String next = authenticationService.refreshToken(token).refreshToken();
+		pastGrace(token);
+
+		assertThatThrownBy(() -> authenticationService.refreshToken(token)).isInstanceOf(BadCredentialsException.class);
+		assertThat(row(next).getRevoked()).isTrue();
+		assertThatThrownBy(() -> authenticationService.refreshToken(next)).isInstanceOf(BadCredentialsException.class);
+	}
+
+	@Test
+	void retryWithinTheGraceGetsASiblingAndKeepsTheWinner() {
+		String token = login("retry").refreshToken();
+		String winner = authenticationService.refreshToken(token).refreshToken();
+
+		String sibling = authenticationService.refreshToken(token).refreshToken();
+
+		assertThat(sibling).isNotEqualTo(winner);
+		assertThat(row(winner).getRevoked()).isFalse();
+		assertThat(row(sibling).getFamilyId()).isEqualTo(row(winner).getFamilyId());
+	}
+
+	@Test
+	void secondRetryWithinTheGraceIsAReplay() {
+		String token = login("second-retry").refreshToken();
+		String winner = authenticationService.refreshToken(token).refreshToken();
+		String sibling = authenticationService.refreshToken(token).refreshToken();
+
+		assertThatThrownBy(() -> authenticationService.refreshToken(token)).isInstanceOf(BadCredentialsException.class);
+		assertThat(row(winner).getRevoked()).isTrue();
+		assertThat(row(sibling).getRevoked()).isTrue();
+	}
+
+	@Test
+	void siblingFromTheGraceCountsAgainstTheSessionCap() {
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			tokens.add(login("capped-retry").refreshToken());
+		}
+		String last = tokens.get(4);
+		authenticationService.refreshToken(last);
+
+		authenticationService.refreshToken(last);
+
+		assertThat(row(tokens.get(0)).getRevoked()).isTrue();
+		assertThat(refreshTokenService.countValidTokensByUser(row(last).getUser())).isEqualTo(5);
+	}
+
+	@Test
+	void twoConcurrentRefreshesOfOneTokenBothSucceedInOneFamily() throws Exception {
+		String token = login("concurrent").refreshToken();
+		String familyId = row(token).getFamilyId();
+
+		List<String> tokens = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<AuthResponse>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return authenticationService.refreshToken(token);
+				}));
+			}
+			start.countDown();
+			for (Future<AuthResponse> future : futures) {
+				tokens.add(future.get().refreshToken());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(tokens).doesNotHaveDuplicates();
+		assertThat(tokens).allMatch(next -> !row(next).getRevoked() && row(next).getFamilyId().equals(familyId));
+
+		// Once the grace has passed the same token is a replay again and ends every sibling
+		pastGrace(token);
+		assertThatThrownBy(() -> authenticationService.refreshToken(token)).isInstanceOf(BadCredentialsException.class);
+		assertThat(tokens).allMatch(next -> row(next).getRevoked());
+	}
+
+	@Test
+	void loginsBeyondTheCapRevokeTheOldest() {
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			tokens.add(login("capped").refreshToken());
+		}
+
+		assertThat(row(tokens.get(0)).getRevoked()).isTrue();
+		assertThat(tokens.subList(1, 6)).allMatch(token -> !row(token).getRevoked());
+	}
+
+	@Test
+	void cleanupKeepsSpentTokensUntilTheyExpire() {
+		String spent = login("cleanup").refreshToken();
+		String expired = authenticationService.refreshToken(spent).refreshToken();
+		jdbcTemplate.update("UPDATE refresh_tokens SET expires_at = ? WHERE token_hash = ?",
+				LocalDateTime.now().minusDays(2), RefreshTokenService.hash(expired));
+
+		refreshTokenService.cleanupExpiredTokens();
+
+		assertThat(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(spent))).isPresent();
+		assertThat(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(expired))).isEmpty();
+	}
+
+	private AuthResponse login(String name) {
+		return authenticationService.authenticateOAuth(name + "@rotation.example", "Refresh", "Tester", name, "LINKEDIN");
+	}
+
+	private RefreshToken row(String token) {
+		return refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(token)).orElseThrow();
+	}
+
+	private void pastGrace(String token) {
+		jdbcTemplate.update("UPDATE refresh_tokens SET rotated_at = ? WHERE token_hash = ?",
+				LocalDateTime.now().minusMinutes(1), RefreshTokenService.hash(token));
+	}
+
+}
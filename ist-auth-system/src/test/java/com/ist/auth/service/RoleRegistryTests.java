@@ -0,0 +1,92 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.Role;
+import com.ist.auth.repository.RoleRepository;
+import com.ist.auth.security.RoleMask;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoleRegistryTests {
+
+	private final RoleRepository roleRepository = mock(RoleRepository.class);
+
+	private final RoleRegistry registry = new RoleRegistry();
+
+	@Test
+	void builtInRolesKeepTheirBitsWhateverTheirIds() {
+		load(role(1L, "CUSTOM"), role(2L, "STUDENT"), role(3L, "ADMIN"), role(4L, "TEACHER"));
+
+		assertThat(registry.bitFor("ADMIN")).isEqualTo(RoleMask.ADMIN);
+		assertThat(registry.bitFor("TEACHER")).isEqualTo(RoleMask.TEACHER);
+		assertThat(registry.bitFor("STUDENT")).isEqualTo(RoleMask.STUDENT);
+		assertThat(registry.bitFor("CUSTOM")).isEqualTo(1 << 3);
+	}
+
+	@Test
+	void customRolesTakeTheNextFreeBitsInIdOrder() {
+		// Loaded out of order; ids decide the allocation
+		load(role(12L, "LIBRARIAN"), role(1L, "ADMIN"), role(10L, "REGISTRAR"), role(11L, "BURSAR"));
+
+		assertThat(registry.bitFor("REGISTRAR")).isEqualTo(1 << 3);
+		assertThat(registry.bitFor("BURSAR")).isEqualTo(1 << 4);
+		assertThat(registry.bitFor("LIBRARIAN")).isEqualTo(1 << 5);
+		// Without STUDENT and TEACHER loaded their bits stay reserved
+		assertThat(registry.bitFor("STUDENT")).isEqualTo(RoleMask.STUDENT);
+	}
+
+	@Test
+	void rolesPastTheLastBitGetNoneAndStillResolveAuthorities() {
+		List<Role> roles = new ArrayList<>();
+		roles.add(role(1L, "ADMIN"));
+		roles.add(role(2L, "TEACHER"));
+		roles.add(role(3L, "STUDENT"));
+		// Bits 3 to 30 are free for custom roles
+		for (int i = 0; i < 29; i++) {
+			roles.add(role(10L + i, "CUSTOM_" + i));
+		}
+		load(roles.toArray(Role[]::new));
+
+		assertThat(registry.bitFor("CUSTOM_27")).isEqualTo(1 << 30);
+		assertThat(registry.bitFor("CUSTOM_28")).isEqualTo(RoleMask.NONE);
+		assertThat(registry.maskOf(List.of(roles.get(0), roles.get(30)))).isPositive();
+
+		List<GrantedAuthority> authorities = registry.authoritiesFor(List.of(roles.get(0), roles.get(31)));
+		assertThat(authorities).extracting(GrantedAuthority::getAuthority)
+				.containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_CUSTOM_28");
+	}
+
+	@Test
+	void rolesWithTheSameMaskShareOneAuthorityList() {
+		Role admin = role(1L, "ADMIN");
+		Role custom = role(5L, "CUSTOM");
+		load(admin, custom);
+
+		List<GrantedAuthority> first = registry.authoritiesFor(List.of(admin, custom));
+		List<GrantedAuthority> second = registry.authoritiesFor(List.of(custom, admin));
+
+		assertThat(second).isSameAs(first);
+		assertThat(first).extracting(GrantedAuthority::getAuthority)
+				.containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_CUSTOM");
+	}
+
+	private void load(Role... roles) {
+		when(roleRepository.findAll()).thenReturn(List.of(roles));
+		ReflectionTestUtils.setField(registry, "roleRepository", roleRepository);
+		registry.refresh();
+	}
+
+	private static Role role(Long id, String name) {
+		Role role = new Role(name, name);
+		role.setId(id);
+		return role;
+	}
+
+}
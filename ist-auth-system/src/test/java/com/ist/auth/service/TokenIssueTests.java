@@ -0,0 +1,102 @@
+package com.ist.auth.service;
+
+import com.ist.auth.entity.RefreshToken;
+import com.ist.auth.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenIssueTests {
+
+	private final JwtService jwtService = mock(JwtService.class);
+
+	private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+
+	private final AuthenticationService authenticationService = new AuthenticationService();
+
+	private final User user = new User("jdoe", "jdoe@ist.edu", "Jane", "Doe");
+
+	private final RefreshToken presented = new RefreshToken("presented", "hash", "family", user,
+			LocalDateTime.now().plusDays(1));
+
+	@BeforeEach
+	void setUp() {
+		AuthStageMetrics stageMetrics = new AuthStageMetrics();
+		ReflectionTestUtils.setField(stageMetrics, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(authenticationService, "stageMetrics", stageMetrics);
+		ReflectionTestUtils.setField(authenticationService, "jwtService", jwtService);
+		ReflectionTestUtils.setField(authenticationService, "refreshTokenService", refreshTokenService);
+		ReflectionTestUtils.setField(authenticationService, "parallelMinting", true);
+		ReflectionTestUtils.setField(authenticationService, "mintingThreads", 2);
+		ReflectionTestUtils.setField(authenticationService, "completionThreads", 1);
+		ReflectionTestUtils.setField(authenticationService, "completionQueueCapacity", 1);
+		authenticationService.init();
+
+		when(refreshTokenService.findByToken("presented")).thenReturn(Optional.of(presented));
+	}
+
+	@AfterEach
+	void tearDown() {
+		authenticationService.shutdown();
+	}
+
+	@Test
+	void issuesBothTokens() {
+		RefreshToken rotated = new RefreshToken("rotated", "hash2", "family", user, LocalDateTime.now().plusDays(1));
+		when(refreshTokenService.rotateToken(presented)).thenReturn(rotated);
+		when(jwtService.generateAccessToken(user)).thenReturn("access");
+
+		assertThat(authenticationService.refreshToken("presented").refreshToken()).isEqualTo("rotated");
+	}
+
+	@Test
+	void failedAccessTokenSigningRevokesTheStoredRefreshToken() {
+		RefreshToken rotated = new RefreshToken("rotated", "hash2", "family", user, LocalDateTime.now().plusDays(1));
+		when(refreshTokenService.rotateToken(presented)).thenReturn(rotated);
+		when(jwtService.generateAccessToken(user)).thenThrow(new IllegalStateException("signing key unavailable"));
+
+		assertThatThrownBy(() -> authenticationService.refreshToken("presented"))
+				.isInstanceOf(IllegalStateException.class);
+		verify(refreshTokenService).revokeToken(rotated);
+	}
+
+	@Test
+	void failedRefreshTokenStageInterruptsAccessTokenSigning() throws Exception {
+		CountDownLatch signing = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(jwtService.generateAccessToken(user)).thenAnswer(invocation -> {
+			signing.countDown();
+			try {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return "access";
+		});
+		when(refreshTokenService.rotateToken(presented)).thenAnswer(invocation -> {
+			signing.await(5, TimeUnit.SECONDS);
+			throw new IllegalStateException("database unavailable");
+		});
+
+		assertThatThrownBy(() -> authenticationService.refreshToken("presented"))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		verify(refreshTokenService, never()).revokeToken(any());
+	}
+
+}